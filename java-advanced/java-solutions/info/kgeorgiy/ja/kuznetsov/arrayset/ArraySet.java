@@ -6,10 +6,12 @@ import java.util.*;
 public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
 
     private final Comparator<T> comparator;
-    private final List<T> list;
+    private final Object[] elements;
+    private final int from;
+    private final int to;
 
     public ArraySet() {
-        this(List.of(), null);
+        this(new Object[0], null);
     }
 
     public ArraySet(Collection<T> collection) {
@@ -20,15 +22,22 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
         this(removeDuplicates(collection, comparator), comparator);
     }
 
-    private ArraySet(List<T> list, Comparator<T> comparator) {
-        this.list = list;
+    private ArraySet(Object[] elements, Comparator<T> comparator) {
+        this(elements, 0, elements.length, comparator);
+    }
+
+    // Views share sorted elements of the root set and keep only their bounds
+    private ArraySet(Object[] elements, int from, int to, Comparator<T> comparator) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
         this.comparator = comparator;
     }
 
-    private static <T> List<T> removeDuplicates(Collection<? extends T> collection, Comparator<? super T> comparator) {
+    private static <T> Object[] removeDuplicates(Collection<? extends T> collection, Comparator<? super T> comparator) {
         TreeSet<T> treeSet = new TreeSet<>(comparator);
         treeSet.addAll(collection);
-        return List.copyOf(treeSet);
+        return treeSet.toArray();
     }
 
     @Override
@@ -36,8 +45,19 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
         return comparator;
     }
 
+    @SuppressWarnings("unchecked")
     private int find(T x) {
-        return Collections.binarySearch(list, x, comparator);
+        return Arrays.binarySearch((T[]) elements, from, to, x, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(int index) {
+        return (T) elements[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> asList() {
+        return (List<T>) Arrays.asList(elements).subList(from, to);
     }
 
     @SuppressWarnings("unchecked")
@@ -57,13 +77,13 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
         }
         int l = findMoreOrEqualThan(fromElement);
         int r = findLessThan(toElement);
-        return new ArraySet<>(list.subList(l, r + 1), comparator);
+        return new ArraySet<>(elements, l, r + 1, comparator);
     }
 
     @Override
     public SortedSet<T> headSet(T toElement) {
         int l = findLessThan(toElement);
-        return new ArraySet<>(list.subList(0, l + 1), comparator);
+        return new ArraySet<>(elements, from, l + 1, comparator);
     }
 
     private int findLessThan(T toElement) {
@@ -74,7 +94,7 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
     @Override
     public SortedSet<T> tailSet(T fromElement) {
         int l = findMoreOrEqualThan(fromElement);
-        return new ArraySet<>(list.subList(l, size()), comparator);
+        return new ArraySet<>(elements, l, to, comparator);
     }
 
     private int findMoreOrEqualThan(T fromElement) {
@@ -87,7 +107,7 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
         if (isEmpty()) {
             throw new NoSuchElementException();
         }
-        return list.get(0);
+        return get(from);
     }
 
     @Override
@@ -95,12 +115,12 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
         if (isEmpty()) {
             throw new NoSuchElementException();
         }
-        return list.get(size() - 1);
+        return get(to - 1);
     }
 
     @Override
     public int size() {
-        return list.size();
+        return to - from;
     }
 
     @Override
@@ -116,16 +136,16 @@ public class ArraySet<T> extends AbstractCollection<T> implements SortedSet<T> {
 
     @Override
     public Iterator<T> iterator() {
-        return list.iterator();
+        return asList().iterator();
     }
 
     @Override
     public Object[] toArray() {
-        return list.toArray();
+        return Arrays.copyOfRange(elements, from, to);
     }
 
     @Override
     public <T1> T1[] toArray(T1[] a) {
-        return list.toArray(a);
+        return asList().toArray(a);
     }
 }
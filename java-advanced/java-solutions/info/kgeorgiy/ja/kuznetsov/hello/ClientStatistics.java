@@ -0,0 +1,97 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Statistics of a client run.
+ * Every request thread adds its latencies once, and they are merged on the first percentile query.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class ClientStatistics {
+    private final List<long[]> parts = new ArrayList<>();
+    private long sent;
+    private long retransmissions;
+    private long lost;
+    private long answered;
+    private long[] latencies;
+
+    void add(long sent, long retransmissions, long lost, long[] latencies, int count) {
+        long[] part = count == latencies.length ? latencies : Arrays.copyOf(latencies, count);
+        synchronized (this) {
+            this.sent += sent;
+            this.retransmissions += retransmissions;
+            this.lost += lost;
+            this.answered += count;
+            parts.add(part);
+            this.latencies = null;
+        }
+    }
+
+    /**
+     * Returns number of answered requests.
+     *
+     * @return number of answered requests
+     */
+    public synchronized long getAnswered() {
+        return answered;
+    }
+
+    /**
+     * Returns number of requests given up after exceeding retry limit.
+     *
+     * @return number of lost requests
+     */
+    public synchronized long getLost() {
+        return lost;
+    }
+
+    /**
+     * Returns number of datagrams that were sent again after a timeout.
+     *
+     * @return number of retransmissions
+     */
+    public synchronized long getRetransmissions() {
+        return retransmissions;
+    }
+
+    /**
+     * Returns share of sent datagrams that weren't answered in time.
+     *
+     * @return loss rate from 0 to 1
+     */
+    public synchronized double getLossRate() {
+        return sent == 0 ? 0 : (double) (sent - answered) / sent;
+    }
+
+    /**
+     * Returns latency percentile from the first send of a request to its response.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return latency in nanoseconds, or 0 if nothing was answered
+     */
+    public synchronized long getLatency(double percentile) {
+        if (answered == 0) {
+            return 0;
+        }
+        if (latencies == null) {
+            latencies = new long[(int) answered];
+            int size = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, latencies, size, part.length);
+                size += part.length;
+            }
+            Arrays.sort(latencies);
+        }
+        int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("answered %d, lost %d, retransmissions %d, loss rate %.3f, p50 %.2f ms, p99 %.2f ms",
+                answered, lost, retransmissions, getLossRate(), getLatency(50) / 1e6, getLatency(99) / 1e6);
+    }
+}
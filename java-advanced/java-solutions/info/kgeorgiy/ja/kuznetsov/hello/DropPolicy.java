@@ -0,0 +1,22 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+/**
+ * Request that is dropped when work queue of a server is full.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public enum DropPolicy {
+    /**
+     * Newly received request is dropped.
+     */
+    DROP_NEWEST,
+    /**
+     * The longest waiting request is dropped, so answered requests are the freshest ones.
+     */
+    DROP_OLDEST,
+    /**
+     * The newest request of the source with the most queued requests is dropped,
+     * and sources are served in turn, so one flooding client can't starve others.
+     */
+    SHED_BY_SOURCE
+}
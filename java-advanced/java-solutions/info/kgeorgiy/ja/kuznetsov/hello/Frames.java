@@ -0,0 +1,54 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Length-prefixed frames of hello stream protocol.
+ * Every frame is a big-endian 4-byte payload length followed by UTF-8 payload.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+final class Frames {
+    static final int MAX_SIZE = 1 << 16;
+
+    private Frames() {
+    }
+
+    /**
+     * Skips header of the next complete frame.
+     *
+     * @param input buffer in read mode
+     * @return payload length, or {@code -1} if frame is not complete yet
+     * @throws IOException if frame length is invalid
+     */
+    static int next(ByteBuffer input) throws IOException {
+        if (input.remaining() < Integer.BYTES) {
+            return -1;
+        }
+        int length = input.getInt(input.position());
+        if (length < 0 || length > MAX_SIZE) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        if (input.remaining() < Integer.BYTES + length) {
+            return -1;
+        }
+        input.position(input.position() + Integer.BYTES);
+        return length;
+    }
+
+    /**
+     * Returns buffer with at least {@code size} bytes remaining, reallocating it if necessary.
+     *
+     * @param buffer buffer in write mode
+     * @param size   required number of bytes
+     * @return {@code buffer} or its enlarged copy
+     */
+    static ByteBuffer ensure(ByteBuffer buffer, int size) {
+        if (buffer.remaining() >= size) {
+            return buffer;
+        }
+        ByteBuffer enlarged = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+        return enlarged.put(buffer.flip());
+    }
+}
@@ -0,0 +1,88 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloClient;
+import info.kgeorgiy.java.advanced.hello.HelloServer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares throughput of hello clients and servers.
+ * Arguments: {@code [clients [requests [port]]]}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class HelloBenchmark {
+    private static final String PREFIX = "benchmark_";
+
+    static final List<Variant<HelloServer>> SERVERS = List.of(
+            new Variant<>("platform server", () -> new HelloUDPServer(ThreadMode.PLATFORM)),
+            new Variant<>("virtual server", () -> new HelloUDPServer(ThreadMode.VIRTUAL)),
+            new Variant<>("batched server", () -> new HelloUDPServer(ThreadMode.PLATFORM, true)),
+            new Variant<>("sharded server", () -> new HelloUDPServer(ThreadMode.PLATFORM, false, true)),
+            new Variant<>("sharded batched server", () -> new HelloUDPServer(ThreadMode.PLATFORM, true, true)),
+            new Variant<>("queued server", () -> new HelloUDPServer(ThreadMode.PLATFORM, false, null,
+                    1024, DropPolicy.DROP_OLDEST, Duration.ofSeconds(1))),
+            new Variant<>("nonblocking server", HelloUDPNonblockingServer::new)
+    );
+
+    static final List<Variant<HelloClient>> CLIENTS = List.of(
+            new Variant<>("platform client", () -> new HelloUDPClient(ThreadMode.PLATFORM)),
+            new Variant<>("virtual client", () -> new HelloUDPClient(ThreadMode.VIRTUAL)),
+            new Variant<>("windowed client", () -> new HelloUDPClient(ThreadMode.PLATFORM, Integer.MAX_VALUE, 16)),
+            new Variant<>("nonblocking client", HelloUDPNonblockingClient::new)
+    );
+
+    /**
+     * Runs every client against every server and prints request rates.
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        int clients;
+        int requests;
+        int port;
+        try {
+            clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+            requests = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            port = args.length > 2 ? Integer.parseInt(args[2]) : 28_900;
+        } catch (NumberFormatException e) {
+            System.err.println("Clients, requests, port must be an integer argument");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        PrintStream out = System.out;
+        for (Variant<HelloServer> server : SERVERS) {
+            for (Variant<HelloClient> client : CLIENTS) {
+                try {
+                    long time = run(server.factory().get(), client.factory().get(), port, threads, clients, requests);
+                    out.printf("%-20s %-20s %10d ms %12.0f requests/s%n", server.name(), client.name(),
+                            time, clients * (double) requests / Math.max(time, 1) * 1000);
+                } catch (UnsupportedOperationException e) {
+                    out.printf("%-20s %-20s skipped: %s%n", server.name(), client.name(), e.getMessage());
+                }
+                port++;
+            }
+        }
+    }
+
+    static long run(HelloServer server, HelloClient client, int port,
+                    int threads, int clients, int requests) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try (server) {
+            server.start(port, threads);
+            long start = System.currentTimeMillis();
+            client.run("localhost", port, PREFIX, clients, requests);
+            return System.currentTimeMillis() - start;
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    record Variant<T>(String name, Supplier<T> factory) {
+    }
+}
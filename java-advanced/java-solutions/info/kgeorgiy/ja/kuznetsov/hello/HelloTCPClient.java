@@ -0,0 +1,248 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Client that sends requests over persistent TCP connections.
+ * Every logical thread has its own connection, and connections are driven by one selector per processor.
+ * Requests and responses are length-prefixed {@link Frames}, and up to {@code window} requests
+ * of every connection are in flight.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ * Class implements {@link HelloClient}
+ */
+public class HelloTCPClient implements HelloClient {
+    private static final int BUFFER_SIZE = 1 << 12;
+
+    private final int window;
+
+    /**
+     * Default constructor. Every connection waits for response before the next request.
+     */
+    public HelloTCPClient() {
+        this(1);
+    }
+
+    /**
+     * Constructor from request window.
+     *
+     * @param window maximal number of requests in flight for every connection
+     */
+    public HelloTCPClient(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.window = window;
+    }
+
+    /**
+     * Runs Hello client.
+     * This method should return when all requests are completed.
+     * If any connection fails or gets an unexpected response, the rest are completed and the failure is rethrown.
+     *
+     * @param host     server host
+     * @param port     server port
+     * @param prefix   request prefix
+     * @param threads  number of request threads
+     * @param requests number of requests per thread.
+     */
+    @Override
+    public void run(String host, int port, String prefix, int threads, int requests) {
+        if (requests <= 0 || threads <= 0) {
+            return;
+        }
+        SocketAddress address = new InetSocketAddress(host, port);
+        int loops = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        ExecutorService service = Executors.newFixedThreadPool(loops);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 1; i <= loops; i++) {
+            final int first = i;
+            tasks.add(service.submit(() -> runLoop(address, prefix, first, loops, threads, requests)));
+        }
+        RuntimeException failure = null;
+        try {
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new RuntimeException(e.getCause());
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            service.shutdownNow();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void runLoop(SocketAddress address, String prefix, int first, int step, int threads, int requests) {
+        List<SocketChannel> channels = new ArrayList<>();
+        try (Selector selector = Selector.open()) {
+            for (int thread = first; thread <= threads; thread += step) {
+                SocketChannel channel = SocketChannel.open();
+                channels.add(channel);
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Connection(channel, prefix, thread, requests));
+            }
+            int active = channels.size();
+            IOException failure = null;
+            while (active > 0) {
+                selector.select();
+                for (Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                    SelectionKey key = i.next();
+                    i.remove();
+                    Connection connection = (Connection) key.attachment();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    boolean done;
+                    try {
+                        done = !connection.process(key);
+                    } catch (IOException e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                        done = true;
+                    }
+                    if (done) {
+                        key.cancel();
+                        key.channel().close();
+                        active--;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            for (SocketChannel channel : channels) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method that sends requests. Arguments: host port prefix threads requests
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        if (args == null || args.length != 5 || args[0] == null || args[1] == null
+                || args[2] == null || args[3] == null || args[4] == null) {
+            System.err.println("Invalid arguments");
+            return;
+        }
+        try {
+            String host = args[0];
+            int port = Integer.parseInt(args[1]);
+            String prefix = args[2];
+            int threads = Integer.parseInt(args[3]);
+            int requests = Integer.parseInt(args[4]);
+            new HelloTCPClient().run(host, port, prefix, threads, requests);
+        } catch (NumberFormatException e) {
+            System.err.println("Port, threads, requests must be an integer argument");
+        }
+    }
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final String prefix;
+        private final int requests;
+        private ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+        private int sent;
+        private int received;
+
+        Connection(SocketChannel channel, String prefix, int thread, int requests) {
+            this.channel = channel;
+            this.prefix = prefix + thread + "_";
+            this.requests = requests;
+        }
+
+        /**
+         * Advances connection after its key was selected.
+         *
+         * @return whether connection has outstanding requests
+         * @throws IOException if connection failed or got unexpected response
+         */
+        boolean process(SelectionKey key) throws IOException {
+            try {
+                if (key.isConnectable()) {
+                    channel.finishConnect();
+                }
+                if (key.isReadable() && !read()) {
+                    return false;
+                }
+                for (; sent < requests && sent - received < window; sent++) {
+                    String text = prefix + (sent + 1);
+                    byte[] data = text.getBytes(StandardCharsets.UTF_8);
+                    output = Frames.ensure(output, Integer.BYTES + data.length);
+                    output.putInt(data.length).put(data);
+                    System.out.println("Request: " + text);
+                }
+                if (output.position() > 0) {
+                    channel.write(output.flip());
+                    output.compact();
+                }
+                key.interestOps(SelectionKey.OP_READ | (output.position() > 0 ? SelectionKey.OP_WRITE : 0));
+                return true;
+            } catch (IOException e) {
+                throw new IOException("Connection " + prefix + " failed: " + e.getMessage(), e);
+            }
+        }
+
+        private boolean read() throws IOException {
+            input = Frames.ensure(input, 1);
+            if (channel.read(input) < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            input.flip();
+            for (int length = Frames.next(input); length >= 0; length = Frames.next(input)) {
+                String response = new String(input.array(), input.position(), length, StandardCharsets.UTF_8);
+                input.position(input.position() + length);
+                String request = prefix + (received + 1);
+                if (!response.contains(request)) {
+                    throw new IOException("Unexpected response " + response + " to " + request);
+                }
+                System.out.println("Response: " + response);
+                received++;
+            }
+            input.compact();
+            return received < requests;
+        }
+    }
+}
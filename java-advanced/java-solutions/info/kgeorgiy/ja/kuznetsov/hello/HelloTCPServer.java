@@ -0,0 +1,243 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server that responds to all requests with "Hello, " + request over TCP.
+ * Requests and responses are length-prefixed {@link Frames}, and every connection may pipeline many requests.
+ * Every working thread runs its own selector; the first one also accepts connections
+ * and distributes them between all threads.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ * Class implements {@link HelloServer}
+ */
+public class HelloTCPServer implements HelloServer {
+    private static final byte[] PREFIX = "Hello, ".getBytes(StandardCharsets.UTF_8);
+    private static final int BUFFER_SIZE = 1 << 12;
+    private static final int MAX_PENDING_OUTPUT = 1 << 20;
+
+    private ServerSocketChannel server;
+    private final List<EventLoop> loops = new ArrayList<>();
+    private ExecutorService service;
+    private int nextLoop;
+
+    /**
+     * Starts a new Hello server.
+     * This method should return immediately.
+     *
+     * @param port    server port.
+     * @param threads number of working threads.
+     */
+    @Override
+    public void start(int port, int threads) {
+        if (service != null && !service.isShutdown()) {
+            close();
+        }
+        try {
+            for (int i = 0; i < threads; i++) {
+                loops.add(new EventLoop());
+            }
+            server = ServerSocketChannel.open();
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(loops.get(0).selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+        service = Executors.newFixedThreadPool(threads);
+        for (EventLoop loop : loops) {
+            service.submit(loop::run);
+        }
+    }
+
+    private void accept() throws IOException {
+        for (SocketChannel channel = server.accept(); channel != null; channel = server.accept()) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            EventLoop loop = loops.get(nextLoop++ % loops.size());
+            loop.accepted.add(channel);
+            loop.selector.wakeup();
+        }
+    }
+
+    /**
+     * Stops server and deallocates all resources.
+     */
+    @Override
+    public void close() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Couldn't close server channel: " + e.getMessage());
+        }
+        if (service != null) {
+            service.shutdownNow();
+            try {
+                service.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (EventLoop loop : loops) {
+            loop.close();
+        }
+        loops.clear();
+    }
+
+    /**
+     * Main method that starts server. Arguments: port threads
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
+            System.err.println("Invalid arguments");
+            return;
+        }
+        try {
+            int port = Integer.parseInt(args[0]);
+            int threads = Integer.parseInt(args[1]);
+            new HelloTCPServer().start(port, threads);
+        } catch (NumberFormatException e) {
+            System.err.println("Port, threads must be an integer argument");
+        }
+    }
+
+    private class EventLoop {
+        private final Selector selector;
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+        EventLoop() throws IOException {
+            selector = Selector.open();
+        }
+
+        void run() {
+            try {
+                loop();
+            } finally {
+                close();
+            }
+        }
+
+        private void loop() {
+            while (!Thread.currentThread().isInterrupted() && selector.isOpen()) {
+                try {
+                    selector.select();
+                    for (SocketChannel channel = accepted.poll(); channel != null; channel = accepted.poll()) {
+                        channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                    }
+                    for (Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                        SelectionKey key = i.next();
+                        i.remove();
+                        if (key.isValid() && key.isAcceptable()) {
+                            accept();
+                        } else if (key.isValid()) {
+                            ((Connection) key.attachment()).process(key);
+                        }
+                    }
+                } catch (ClosedSelectorException e) {
+                    return;
+                } catch (IOException e) {
+                    if (selector.isOpen()) {
+                        System.err.println("I/O error: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        synchronized void close() {
+            if (selector.isOpen()) {
+                for (SelectionKey key : selector.keys()) {
+                    closeChannel(key.channel());
+                }
+                closeChannel(selector);
+            }
+            for (SocketChannel channel = accepted.poll(); channel != null; channel = accepted.poll()) {
+                closeChannel(channel);
+            }
+        }
+    }
+
+    private static void closeChannel(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.err.println("Couldn't close channel: " + e.getMessage());
+        }
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void process(SelectionKey key) {
+            try {
+                if (key.isReadable()) {
+                    read(key);
+                }
+                if (key.isValid()) {
+                    flush(key);
+                }
+            } catch (IOException e) {
+                key.cancel();
+                closeChannel(channel);
+            }
+        }
+
+        private void read(SelectionKey key) throws IOException {
+            input = Frames.ensure(input, 1);
+            if (channel.read(input) < 0) {
+                key.cancel();
+                channel.close();
+                return;
+            }
+            input.flip();
+            for (int length = Frames.next(input); length >= 0; length = Frames.next(input)) {
+                output = Frames.ensure(output, Integer.BYTES + PREFIX.length + length);
+                output.putInt(PREFIX.length + length).put(PREFIX);
+                int limit = input.limit();
+                output.put(input.limit(input.position() + length));
+                input.limit(limit);
+            }
+            input.compact();
+        }
+
+        private void flush(SelectionKey key) throws IOException {
+            if (output.position() > 0) {
+                channel.write(output.flip());
+                output.compact();
+            }
+            key.interestOps((output.position() > 0 ? SelectionKey.OP_WRITE : 0)
+                    | (output.position() < MAX_PENDING_OUTPUT ? SelectionKey.OP_READ : 0));
+        }
+    }
+}
@@ -8,8 +8,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client that sends requests via UDP.
@@ -18,7 +18,83 @@ import java.util.concurrent.Future;
  * Class implements {@link HelloClient}
  */
 public class HelloUDPClient implements HelloClient {
-    private final int TIMEOUT = 100;
+    private static final int TIMEOUT = 100;
+    /**
+     * Default lower bound of retransmission timeout in milliseconds. Strict servers treat a retransmission
+     * of an already answered request as an error, so the default leaves room for scheduling stalls of a busy host.
+     */
+    private static final int MIN_TIMEOUT = 50;
+    private static final int MAX_TIMEOUT = 3_000;
+
+    private final ThreadMode threadMode;
+    private final int maxRetries;
+    private final int window;
+    private final int minTimeout;
+    private volatile ClientStatistics statistics;
+
+    /**
+     * Default constructor. Client uses platform threads.
+     */
+    public HelloUDPClient() {
+        this(ThreadMode.PLATFORM);
+    }
+
+    /**
+     * Constructor from kind of request threads.
+     *
+     * @param threadMode kind of threads that run logical clients
+     * @throws UnsupportedOperationException if threads of this mode are not available
+     */
+    public HelloUDPClient(ThreadMode threadMode) {
+        this(threadMode, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor from kind of request threads and retry limit.
+     * Retransmission timeouts adapt to measured round-trip time and double after every loss.
+     *
+     * @param threadMode kind of threads that run logical clients
+     * @param maxRetries number of retransmissions after which request is considered lost
+     */
+    public HelloUDPClient(ThreadMode threadMode, int maxRetries) {
+        this(threadMode, maxRetries, 1);
+    }
+
+    /**
+     * Constructor from kind of request threads, retry limit and request window.
+     * Every logical client keeps up to {@code window} requests in flight,
+     * matches responses to requests by their numbers and retransmits only unanswered ones.
+     *
+     * @param threadMode kind of threads that run logical clients
+     * @param maxRetries number of retransmissions after which request is considered lost
+     * @param window     maximal number of requests in flight for every logical client
+     */
+    public HelloUDPClient(ThreadMode threadMode, int maxRetries, int window) {
+        this(threadMode, maxRetries, window, MIN_TIMEOUT);
+    }
+
+    /**
+     * Constructor from kind of request threads, retry limit, request window and lower bound of timeout.
+     * Adaptive timeout never drops below {@code minTimeout}, however short measured round-trip time is.
+     *
+     * @param threadMode kind of threads that run logical clients
+     * @param maxRetries number of retransmissions after which request is considered lost
+     * @param window     maximal number of requests in flight for every logical client
+     * @param minTimeout lower bound of retransmission timeout in milliseconds
+     */
+    public HelloUDPClient(ThreadMode threadMode, int maxRetries, int window, int minTimeout) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (minTimeout <= 0 || minTimeout > MAX_TIMEOUT) {
+            throw new IllegalArgumentException("Minimal timeout must be between 1 and " + MAX_TIMEOUT + " ms");
+        }
+        threadMode.checkSupported();
+        this.threadMode = threadMode;
+        this.maxRetries = maxRetries;
+        this.window = window;
+        this.minTimeout = minTimeout;
+    }
 
     /**
      * Runs Hello client.
@@ -32,34 +108,15 @@ public class HelloUDPClient implements HelloClient {
      */
     @Override
     public void run(String host, int port, String prefix, int threads, int requests) {
-        ExecutorService service = Executors.newFixedThreadPool(threads);
+        ExecutorService service = threadMode.newExecutor(threads);
         SocketAddress address = new InetSocketAddress(host, port);
+        ClientStatistics runStatistics = new ClientStatistics();
         List<Future<?>> tasks = new ArrayList<>();
         for (int i = 1; i <= threads; i++) {
             final int finalI = i;
             Future<?> task = service.submit(() -> {
-                try (DatagramSocket socket = new DatagramSocket()) {
-                    socket.setSoTimeout(TIMEOUT);
-                    int bufferSize = socket.getReceiveBufferSize();
-                    for (int j = 1; j <= requests; j++) {
-                        String stringRequest = prefix + finalI + "_" + j;
-                        byte[] data = stringRequest.getBytes();
-                        DatagramPacket request = new DatagramPacket(data, data.length, address);
-                        DatagramPacket response = new DatagramPacket(new byte[bufferSize], bufferSize);
-                        while (!socket.isClosed()) {
-                            try {
-                                socket.send(request);
-                                System.out.println("Request: " + stringRequest);
-                                socket.receive(response);
-                                String stringResponse = new String(response.getData(), 0, response.getLength());
-                                if (stringResponse.contains(stringRequest)) {
-                                    System.out.println("Response: " + stringResponse);
-                                    break;
-                                }
-                            } catch (SocketTimeoutException ignored) {
-                            }
-                        }
-                    }
+                try {
+                    runThread(address, prefix, finalI, requests, runStatistics);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
@@ -74,6 +131,130 @@ public class HelloUDPClient implements HelloClient {
             }
         }
         service.shutdownNow();
+        statistics = runStatistics;
+    }
+
+    private void runThread(SocketAddress address, String prefix, int thread, int requests,
+                           ClientStatistics runStatistics) throws IOException {
+        RttEstimator estimator = new RttEstimator(
+                TimeUnit.MILLISECONDS.toNanos(Math.max(TIMEOUT, minTimeout)),
+                TimeUnit.MILLISECONDS.toNanos(minTimeout),
+                TimeUnit.MILLISECONDS.toNanos(MAX_TIMEOUT)
+        );
+        String threadPrefix = prefix + thread + "_";
+        Window requestWindow = new Window(window);
+        long[] latencies = new long[Math.max(0, requests)];
+        int answered = 0;
+        long sent = 0;
+        long retransmissions = 0;
+        long lost = 0;
+        try (DatagramSocket socket = new DatagramSocket()) {
+            int bufferSize = socket.getReceiveBufferSize();
+            DatagramPacket response = new DatagramPacket(new byte[bufferSize], bufferSize);
+            int base = 1;
+            int next = 1;
+            while (base <= requests && !socket.isClosed()) {
+                for (; next <= requests && next - base < window; next++) {
+                    int slot = requestWindow.slot(next);
+                    requestWindow.start(slot, threadPrefix + next, address);
+                    send(socket, requestWindow, slot, estimator.getTimeout());
+                    sent++;
+                }
+                long deadline = Long.MAX_VALUE;
+                for (int j = base; j < next; j++) {
+                    int slot = requestWindow.slot(j);
+                    if (!requestWindow.done[slot]) {
+                        deadline = Math.min(deadline, requestWindow.deadlines[slot]);
+                    }
+                }
+                int j = receive(socket, response, threadPrefix, deadline);
+                if (j >= base && j < next && !requestWindow.done[requestWindow.slot(j)]) {
+                    int slot = requestWindow.slot(j);
+                    long now = System.nanoTime();
+                    estimator.sample(now - requestWindow.sendTimes[slot], requestWindow.attempts[slot] > 1);
+                    latencies[answered++] = now - requestWindow.firstSendTimes[slot];
+                    requestWindow.done[slot] = true;
+                    System.out.println("Response: " + new String(response.getData(), 0, response.getLength()));
+                } else if (j == 0) {
+                    estimator.backoff();
+                    long now = System.nanoTime();
+                    for (int k = base; k < next; k++) {
+                        int slot = requestWindow.slot(k);
+                        if (requestWindow.done[slot] || requestWindow.deadlines[slot] > now) {
+                            continue;
+                        }
+                        if (requestWindow.attempts[slot] > maxRetries) {
+                            System.err.println("No response for " + requestWindow.texts[slot]);
+                            requestWindow.done[slot] = true;
+                            lost++;
+                        } else {
+                            send(socket, requestWindow, slot, estimator.getTimeout());
+                            sent++;
+                            retransmissions++;
+                        }
+                    }
+                }
+                while (base < next && requestWindow.done[requestWindow.slot(base)]) {
+                    base++;
+                }
+            }
+        } finally {
+            runStatistics.add(sent, retransmissions, lost, latencies, answered);
+        }
+    }
+
+    private static void send(DatagramSocket socket, Window requestWindow, int slot, long timeout) throws IOException {
+        long now = System.nanoTime();
+        requestWindow.sendTimes[slot] = now;
+        requestWindow.deadlines[slot] = now + timeout;
+        requestWindow.attempts[slot]++;
+        socket.send(requestWindow.packets[slot]);
+        System.out.println("Request: " + requestWindow.texts[slot]);
+    }
+
+    private static int receive(DatagramSocket socket, DatagramPacket response, String threadPrefix, long deadline)
+            throws IOException {
+        while (true) {
+            // Responses queued after the deadline passed are still drained before giving up
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime() + 999_999);
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, Math.max(1, remaining)));
+            try {
+                response.setLength(response.getData().length);
+                socket.receive(response);
+            } catch (SocketTimeoutException e) {
+                return 0;
+            }
+            int request = parseRequest(new String(response.getData(), 0, response.getLength()), threadPrefix);
+            if (request > 0) {
+                return request;
+            }
+        }
+    }
+
+    private static int parseRequest(String response, String threadPrefix) {
+        int start = response.indexOf(threadPrefix);
+        if (start < 0) {
+            return -1;
+        }
+        start += threadPrefix.length();
+        int end = start;
+        while (end < response.length() && end - start < 9 && Character.isDigit(response.charAt(end))) {
+            end++;
+        }
+        try {
+            return end > start ? Integer.parseInt(response, start, end, 10) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns statistics of the last completed run.
+     *
+     * @return {@link ClientStatistics} statistics or {@code null} if client wasn't run
+     */
+    public ClientStatistics getStatistics() {
+        return statistics;
     }
 
     /**
@@ -93,9 +274,44 @@ public class HelloUDPClient implements HelloClient {
             String prefix = args[2];
             int threads = Integer.parseInt(args[3]);
             int requests = Integer.parseInt(args[4]);
-            new HelloUDPClient().run(host, port, prefix, threads, requests);
+            HelloUDPClient client = new HelloUDPClient();
+            client.run(host, port, prefix, threads, requests);
+            System.out.println(client.getStatistics());
         } catch (NumberFormatException e) {
             System.err.println("Port, threads, requests must be an integer argument");
         }
     }
+
+    private static class Window {
+        private final String[] texts;
+        private final DatagramPacket[] packets;
+        private final int[] attempts;
+        private final long[] firstSendTimes;
+        private final long[] sendTimes;
+        private final long[] deadlines;
+        private final boolean[] done;
+
+        Window(int size) {
+            texts = new String[size];
+            packets = new DatagramPacket[size];
+            attempts = new int[size];
+            firstSendTimes = new long[size];
+            sendTimes = new long[size];
+            deadlines = new long[size];
+            done = new boolean[size];
+        }
+
+        int slot(int request) {
+            return (request - 1) % texts.length;
+        }
+
+        void start(int slot, String text, SocketAddress address) {
+            byte[] data = text.getBytes();
+            texts[slot] = text;
+            packets[slot] = new DatagramPacket(data, data.length, address);
+            attempts[slot] = 0;
+            firstSendTimes[slot] = System.nanoTime();
+            done[slot] = false;
+        }
+    }
 }
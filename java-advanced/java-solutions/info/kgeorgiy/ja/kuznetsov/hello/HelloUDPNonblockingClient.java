@@ -0,0 +1,180 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Client that sends requests via UDP from a single thread.
+ * Every logical thread has its own channel, and all channels are driven by one selector.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ * Class implements {@link HelloClient}
+ */
+public class HelloUDPNonblockingClient implements HelloClient {
+    private static final int TIMEOUT = 100;
+
+    /**
+     * Runs Hello client.
+     * This method should return when all requests are completed.
+     *
+     * @param host     server host
+     * @param port     server port
+     * @param prefix   request prefix
+     * @param threads  number of request threads
+     * @param requests number of requests per thread.
+     */
+    @Override
+    public void run(String host, int port, String prefix, int threads, int requests) {
+        if (requests <= 0) {
+            return;
+        }
+        SocketAddress address = new InetSocketAddress(host, port);
+        List<DatagramChannel> channels = new ArrayList<>();
+        try (Selector selector = Selector.open()) {
+            for (int i = 1; i <= threads; i++) {
+                DatagramChannel channel = DatagramChannel.open();
+                channels.add(channel);
+                channel.configureBlocking(false);
+                channel.connect(address);
+                Client client = new Client(prefix, i);
+                client.key = channel.register(selector, SelectionKey.OP_WRITE, client);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(channels.isEmpty()
+                    ? 0 : channels.get(0).getOption(StandardSocketOptions.SO_RCVBUF));
+            Queue<Timeout> timeouts = new PriorityQueue<>(Comparator.comparingLong(Timeout::deadline));
+            int active = threads;
+            while (active > 0) {
+                long now = System.currentTimeMillis();
+                while (!timeouts.isEmpty() && timeouts.peek().deadline() <= now) {
+                    Timeout timeout = timeouts.poll();
+                    SelectionKey key = timeout.client().key;
+                    if (timeout.client().deadline == timeout.deadline()
+                            && key.isValid() && key.interestOps() == SelectionKey.OP_READ) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                    }
+                }
+                selector.select(timeouts.isEmpty() ? 0 : Math.max(1, timeouts.peek().deadline() - now));
+                for (Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                    SelectionKey key = i.next();
+                    i.remove();
+                    Client client = (Client) key.attachment();
+                    if (key.isValid() && key.isWritable()) {
+                        send(key, client);
+                        timeouts.add(new Timeout(client, client.deadline));
+                    } else if (key.isValid() && key.isReadable() && receive(key, client, buffer)) {
+                        if (client.request < requests) {
+                            client.next();
+                            key.interestOps(SelectionKey.OP_WRITE);
+                        } else {
+                            key.cancel();
+                            key.channel().close();
+                            active--;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            for (DatagramChannel channel : channels) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void send(SelectionKey key, Client client) {
+        try {
+            ((DatagramChannel) key.channel()).write(client.data.rewind());
+            System.out.println("Request: " + client.text);
+        } catch (IOException e) {
+            System.err.println("Couldn't send request " + client.text + ": " + e.getMessage());
+        }
+        client.deadline = System.currentTimeMillis() + TIMEOUT;
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private static boolean receive(SelectionKey key, Client client, ByteBuffer buffer) {
+        buffer.clear();
+        try {
+            ((DatagramChannel) key.channel()).read(buffer);
+        } catch (IOException e) {
+            return false;
+        }
+        String response = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        if (response.contains(client.text)) {
+            System.out.println("Response: " + response);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Main method that sends requests. Arguments: host port prefix threads requests
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        if (args == null || args.length != 5 || args[0] == null || args[1] == null
+                || args[2] == null || args[3] == null || args[4] == null) {
+            System.err.println("Invalid arguments");
+            return;
+        }
+        try {
+            String host = args[0];
+            int port = Integer.parseInt(args[1]);
+            String prefix = args[2];
+            int threads = Integer.parseInt(args[3]);
+            int requests = Integer.parseInt(args[4]);
+            new HelloUDPNonblockingClient().run(host, port, prefix, threads, requests);
+        } catch (NumberFormatException e) {
+            System.err.println("Port, threads, requests must be an integer argument");
+        }
+    }
+
+    private record Timeout(Client client, long deadline) {
+    }
+
+    private static class Client {
+        private final String prefix;
+        private final int thread;
+        private int request = 1;
+        private String text;
+        private ByteBuffer data;
+        private long deadline;
+        private SelectionKey key;
+
+        Client(String prefix, int thread) {
+            this.prefix = prefix;
+            this.thread = thread;
+            update();
+        }
+
+        void next() {
+            request++;
+            update();
+        }
+
+        private void update() {
+            text = prefix + thread + "_" + request;
+            data = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
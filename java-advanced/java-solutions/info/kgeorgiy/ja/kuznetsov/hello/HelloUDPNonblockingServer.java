@@ -0,0 +1,184 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking server that responds to all requests with "Hello, " + request.
+ * One selector thread receives and sends datagrams, working threads build responses.
+ * Requests are received only while there are free buffers, so under overload
+ * they wait in the socket queue instead of losing already accepted responses.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ * Class implements {@link HelloServer}
+ */
+public class HelloUDPNonblockingServer implements HelloServer {
+    private static final byte[] PREFIX = "Hello, ".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_DATAGRAM_SIZE = 65_507;
+    private static final int BUFFERS_PER_THREAD = 8;
+
+    private Selector selector;
+    private DatagramChannel channel;
+    private ExecutorService listener;
+    private ExecutorService workers;
+    private Queue<ByteBuffer> buffers;
+    private Queue<Packet> responses;
+
+    /**
+     * Starts a new Hello server.
+     * This method should return immediately.
+     *
+     * @param port    server port.
+     * @param threads number of working threads.
+     */
+    @Override
+    public void start(int port, int threads) {
+        if (selector != null && selector.isOpen()) {
+            close();
+        }
+        try {
+            selector = Selector.open();
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+        buffers = new ArrayDeque<>();
+        for (int i = 0; i < threads * BUFFERS_PER_THREAD; i++) {
+            buffers.add(ByteBuffer.allocateDirect(PREFIX.length + MAX_DATAGRAM_SIZE));
+        }
+        responses = new ConcurrentLinkedQueue<>();
+        workers = Executors.newFixedThreadPool(threads);
+        listener = Executors.newSingleThreadExecutor();
+        listener.submit(this::listen);
+    }
+
+    private void listen() {
+        while (!Thread.currentThread().isInterrupted() && selector.isOpen()) {
+            try {
+                SelectionKey key = channel.keyFor(selector);
+                key.interestOps((buffers.isEmpty() ? 0 : SelectionKey.OP_READ)
+                        | (responses.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+                selector.select();
+                for (Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                    SelectionKey selected = i.next();
+                    i.remove();
+                    if (selected.isValid() && selected.isWritable()) {
+                        send();
+                    }
+                    if (selected.isValid() && selected.isReadable()) {
+                        receive();
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                if (channel.isOpen()) {
+                    System.err.println("I/O error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void receive() throws IOException {
+        while (!buffers.isEmpty()) {
+            ByteBuffer buffer = buffers.peek();
+            buffer.clear().position(PREFIX.length);
+            SocketAddress address = channel.receive(buffer);
+            if (address == null) {
+                return;
+            }
+            buffers.poll();
+            buffer.flip();
+            workers.submit(() -> respond(new Packet(buffer, address)));
+        }
+    }
+
+    private void respond(Packet request) {
+        request.buffer().put(0, PREFIX);
+        responses.add(request);
+        selector.wakeup();
+    }
+
+    private void send() throws IOException {
+        for (Packet response = responses.peek(); response != null; response = responses.peek()) {
+            if (channel.send(response.buffer(), response.address()) == 0) {
+                return;
+            }
+            responses.poll();
+            buffers.add(response.buffer());
+        }
+    }
+
+    /**
+     * Stops server and deallocates all resources.
+     */
+    @Override
+    public void close() {
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Couldn't close channel: " + e.getMessage());
+        }
+        shutdown(listener);
+        shutdown(workers);
+    }
+
+    private static void shutdown(ExecutorService service) {
+        if (service == null) {
+            return;
+        }
+        service.shutdownNow();
+        try {
+            service.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Main method that starts server. Arguments: port threads
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
+            System.err.println("Invalid arguments");
+            return;
+        }
+        try {
+            int port = Integer.parseInt(args[0]);
+            int threads = Integer.parseInt(args[1]);
+            new HelloUDPNonblockingServer().start(port, threads);
+        } catch (NumberFormatException e) {
+            System.err.println("Port, threads must be an integer argument");
+        }
+    }
+
+    private record Packet(ByteBuffer buffer, SocketAddress address) {
+    }
+}
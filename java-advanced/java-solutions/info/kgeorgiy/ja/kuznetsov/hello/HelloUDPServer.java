@@ -2,22 +2,164 @@ package info.kgeorgiy.ja.kuznetsov.hello;
 
 import info.kgeorgiy.java.advanced.hello.HelloServer;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Server that responds to all requests with "Hello, " + request
+ * Every working thread receives a request right after the encoded prefix
+ * in its own buffer and sends the same buffer back, so requests are served without allocations.
+ * In batched mode every wakeup drains all pending datagrams before replies are sent back-to-back.
+ * In sharded mode every thread has its own socket bound to the same port.
+ * In queued mode receiving threads put requests to a bounded queue and working threads answer them.
+ * When the queue is full, requests are dropped by {@link DropPolicy}, and on close queued requests are
+ * answered until the drain timeout expires.
+ * Running server publishes {@link ServerMetrics} as a JMX bean and may log them periodically.
+ * Requests are received by a fixed pool of platform threads. In {@link ThreadMode#VIRTUAL} mode every received
+ * request is answered by its own new virtual thread, otherwise by the thread that received it.
  *
  * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
  * Class implements {@link HelloServer}
  */
 public class HelloUDPServer implements HelloServer {
-    private DatagramSocket socket;
+    private static final byte[] PREFIX = "Hello, ".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_DATAGRAM_SIZE = 65_507;
+    private static final int BATCH_SIZE = 64;
+    private static final Duration METRICS_PERIOD = Duration.ofSeconds(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(1);
+    private static final int POLL_TIMEOUT = 100;
+
+    private final ThreadMode threadMode;
+    private final boolean batched;
+    private final boolean sharded;
+    private final Duration metricsPeriod;
+    private final int queueCapacity;
+    private final DropPolicy dropPolicy;
+    private final Duration drainTimeout;
+    private final List<DatagramSocket> sockets = new ArrayList<>();
+    private final List<DatagramChannel> channels = new ArrayList<>();
     private ExecutorService service;
+    private ExecutorService receivers;
+    private ExecutorService handlers;
+    private WorkQueue<Request> queue;
+    private volatile boolean closing;
+    private volatile boolean receiving;
+    private ServerMetrics metrics;
+    private ObjectName metricsName;
+    private ScheduledExecutorService metricsLogger;
+
+    /**
+     * Default constructor. Server uses platform threads.
+     */
+    public HelloUDPServer() {
+        this(ThreadMode.PLATFORM);
+    }
+
+    /**
+     * Constructor from kind of working threads.
+     *
+     * @param threadMode kind of threads that answer requests
+     * @throws UnsupportedOperationException if threads of this mode are not available
+     */
+    public HelloUDPServer(ThreadMode threadMode) {
+        this(threadMode, false);
+    }
+
+    /**
+     * Constructor from kind of working threads and I/O mode.
+     *
+     * @param threadMode kind of threads that answer requests
+     * @param batched    whether threads receive and answer requests in batches from non-blocking channel
+     */
+    public HelloUDPServer(ThreadMode threadMode, boolean batched) {
+        this(threadMode, batched, false);
+    }
+
+    /**
+     * Constructor from kind of working threads, I/O mode and sharding mode.
+     * Sharded server opens a separate socket for every working thread with {@code SO_REUSEPORT},
+     * so the kernel spreads requests between them. If the option is not supported, one socket is shared.
+     *
+     * @param threadMode kind of threads that answer requests
+     * @param batched    whether threads receive and answer requests in batches from non-blocking channel
+     * @param sharded    whether every thread has its own socket
+     */
+    public HelloUDPServer(ThreadMode threadMode, boolean batched, boolean sharded) {
+        this(threadMode, batched, sharded, null);
+    }
+
+    /**
+     * Constructor from kind of working threads, I/O mode, sharding mode and metrics logging period.
+     *
+     * @param threadMode    kind of threads that answer requests
+     * @param batched       whether threads receive and answer requests in batches from non-blocking channel
+     * @param sharded       whether every thread has its own socket
+     * @param metricsPeriod period of metrics logging to {@link System#err}, or {@code null} to disable logging
+     */
+    public HelloUDPServer(ThreadMode threadMode, boolean batched, boolean sharded, Duration metricsPeriod) {
+        this(threadMode, batched, sharded, metricsPeriod, 0, DropPolicy.DROP_NEWEST, Duration.ZERO);
+    }
+
+    /**
+     * Constructor of queued server.
+     * Receiving thread of every socket puts requests to the bounded queue, and working threads answer them.
+     * Every queued request holds a buffer of maximal datagram size.
+     *
+     * @param threadMode    kind of threads that answer requests
+     * @param sharded       whether every thread has its own socket
+     * @param metricsPeriod period of metrics logging to {@link System#err}, or {@code null} to disable logging
+     * @param queueCapacity maximal number of requests waiting for working threads
+     * @param dropPolicy    request to drop when queue is full
+     * @param drainTimeout  maximal time to answer queued requests on close
+     */
+    public HelloUDPServer(ThreadMode threadMode, boolean sharded, Duration metricsPeriod,
+                          int queueCapacity, DropPolicy dropPolicy, Duration drainTimeout) {
+        this(threadMode, false, sharded, metricsPeriod, queueCapacity, dropPolicy, drainTimeout);
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+    }
+
+    private HelloUDPServer(ThreadMode threadMode, boolean batched, boolean sharded, Duration metricsPeriod,
+                           int queueCapacity, DropPolicy dropPolicy, Duration drainTimeout) {
+        if (threadMode == ThreadMode.VIRTUAL && (batched || queueCapacity > 0)) {
+            throw new IllegalArgumentException("Batched and queued servers answer requests by working threads");
+        }
+        threadMode.checkSupported();
+        this.threadMode = threadMode;
+        this.batched = batched;
+        this.sharded = sharded;
+        this.metricsPeriod = metricsPeriod;
+        this.queueCapacity = queueCapacity;
+        this.dropPolicy = dropPolicy;
+        this.drainTimeout = drainTimeout;
+    }
 
     /**
      * Starts a new Hello server.
@@ -28,32 +170,316 @@ public class HelloUDPServer implements HelloServer {
      */
     @Override
     public void start(int port, int threads) {
-        if (socket != null && !socket.isClosed()) {
+        if (service != null && !service.isShutdown()) {
             close();
         }
+        int shards = 1;
+        if (sharded && threads > 1) {
+            if (isReusePortSupported()) {
+                shards = threads;
+            } else {
+                System.err.println("SO_REUSEPORT is not supported, using single socket");
+            }
+        }
+        int boundPort = port;
         try {
-            socket = new DatagramSocket(port);
-            service = Executors.newFixedThreadPool(threads);
-            int bufferSize = socket.getReceiveBufferSize();
-            for (int i = 0; i < threads; i++) {
-                service.submit(() -> {
-                    while (!socket.isClosed()) {
-                        try {
-                            DatagramPacket request = new DatagramPacket(new byte[bufferSize], bufferSize);
-                            socket.receive(request);
-                            String stringResponse = "Hello, " + new String(request.getData(), 0, request.getLength());
-                            byte[] data = stringResponse.getBytes();
-                            DatagramPacket response = new DatagramPacket(data, data.length, request.getSocketAddress());
-                            socket.send(response);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                });
+            // Shards after the first bind to its port, which may have been chosen by the system
+            for (int i = 0; i < shards; i++) {
+                if (batched) {
+                    DatagramChannel channel = openChannel(boundPort, shards > 1);
+                    channels.add(channel);
+                    boundPort = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+                } else {
+                    DatagramSocket socket = openSocket(boundPort, shards > 1);
+                    sockets.add(socket);
+                    boundPort = socket.getLocalPort();
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+        closing = false;
+        receiving = true;
+        ServerMetrics serverMetrics = new ServerMetrics(threads);
+        metrics = serverMetrics;
+        registerMetrics(boundPort);
+        service = Executors.newFixedThreadPool(threads);
+        ExecutorService requestHandlers = threadMode == ThreadMode.VIRTUAL ? threadMode.newExecutor(threads) : null;
+        handlers = requestHandlers;
+        if (queueCapacity > 0) {
+            startQueued(threads, serverMetrics);
+            return;
+        }
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            if (batched) {
+                DatagramChannel channel = channels.get(i % shards);
+                service.submit(() -> serveBatched(channel, serverMetrics, worker));
+            } else {
+                DatagramSocket socket = sockets.get(i % shards);
+                service.submit(() -> serve(socket, serverMetrics, worker, requestHandlers));
             }
+        }
+    }
+
+    private void startQueued(int threads, ServerMetrics serverMetrics) {
+        WorkQueue<Request> requests = new WorkQueue<>(queueCapacity, dropPolicy,
+                request -> request.packet.getSocketAddress());
+        queue = requests;
+        BlockingQueue<Request> free = new ArrayBlockingQueue<>(queueCapacity + threads + sockets.size());
+        while (free.remainingCapacity() > 0) {
+            free.add(new Request());
+        }
+        receivers = Executors.newFixedThreadPool(sockets.size());
+        for (DatagramSocket socket : sockets) {
+            receivers.submit(() -> receive(socket, requests, free, serverMetrics));
+        }
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            service.submit(() -> respond(requests, free, serverMetrics, worker));
+        }
+    }
+
+    private void registerMetrics(int port) {
+        try {
+            ObjectName name = new ObjectName(getClass().getPackageName() + ":type=HelloUDPServer,port=" + port);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metricsName = name;
+        } catch (JMException e) {
+            System.err.println("Couldn't register metrics: " + e.getMessage());
+        }
+        if (metricsPeriod != null) {
+            ServerMetrics serverMetrics = metrics;
+            metricsLogger = Executors.newSingleThreadScheduledExecutor();
+            metricsLogger.scheduleAtFixedRate(() -> System.err.println(serverMetrics),
+                    metricsPeriod.toMillis(), metricsPeriod.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns metrics of the last started server.
+     *
+     * @return {@link ServerMetrics} metrics or {@code null} if server wasn't started
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns sockets of the running server, one for every shard.
+     */
+    List<DatagramSocket> getSockets() {
+        return batched ? channels.stream().map(DatagramChannel::socket).toList() : List.copyOf(sockets);
+    }
+
+    static boolean isReusePortSupported() {
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static DatagramSocket openSocket(int port, boolean reusePort) throws IOException {
+        DatagramSocket socket = new DatagramSocket(null);
+        try {
+            if (reusePort) {
+                socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            socket.bind(new InetSocketAddress(port));
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private static DatagramChannel openChannel(int port, boolean reusePort) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            if (reusePort) {
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void serve(DatagramSocket socket, ServerMetrics metrics, int worker, ExecutorService handlers) {
+        int bufferSize;
+        try {
+            bufferSize = socket.getReceiveBufferSize();
         } catch (SocketException e) {
             throw new RuntimeException(e);
         }
+        byte[] buffer = new byte[PREFIX.length + bufferSize];
+        System.arraycopy(PREFIX, 0, buffer, 0, PREFIX.length);
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setData(buffer, PREFIX.length, bufferSize);
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.err.println("Couldn't receive request: " + e.getMessage());
+                }
+                continue;
+            }
+            long receiveTime = System.nanoTime();
+            metrics.received(packet.getLength());
+            if (handlers == null) {
+                packet.setData(buffer, 0, PREFIX.length + packet.getLength());
+                send(socket, packet, metrics, receiveTime);
+            } else {
+                byte[] response = Arrays.copyOf(buffer, PREFIX.length + packet.getLength());
+                SocketAddress address = packet.getSocketAddress();
+                try {
+                    handlers.execute(() -> send(socket, new DatagramPacket(response, response.length, address),
+                            metrics, receiveTime));
+                } catch (RejectedExecutionException e) {
+                    metrics.dropped();
+                }
+            }
+            metrics.busy(worker, System.nanoTime() - receiveTime);
+        }
+    }
+
+    private static void send(DatagramSocket socket, DatagramPacket packet, ServerMetrics metrics, long receiveTime) {
+        try {
+            socket.send(packet);
+            metrics.sent(packet.getLength(), receiveTime);
+        } catch (IOException e) {
+            metrics.dropped();
+            if (!socket.isClosed()) {
+                System.err.println("Couldn't send response: " + e.getMessage());
+            }
+        }
+    }
+
+    private void receive(DatagramSocket socket, WorkQueue<Request> requests, BlockingQueue<Request> free,
+                         ServerMetrics metrics) {
+        try {
+            socket.setSoTimeout(POLL_TIMEOUT);
+        } catch (SocketException e) {
+            System.err.println("Couldn't set socket timeout: " + e.getMessage());
+        }
+        while (!closing && !socket.isClosed()) {
+            Request request;
+            try {
+                request = free.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                request.packet.setData(request.buffer, PREFIX.length, MAX_DATAGRAM_SIZE);
+                socket.receive(request.packet);
+            } catch (SocketTimeoutException e) {
+                free.add(request);
+                continue;
+            } catch (IOException e) {
+                free.add(request);
+                if (!socket.isClosed()) {
+                    System.err.println("Couldn't receive request: " + e.getMessage());
+                }
+                continue;
+            }
+            request.socket = socket;
+            request.receiveTime = System.nanoTime();
+            metrics.received(request.packet.getLength());
+            Request dropped = requests.offer(request);
+            if (dropped != null) {
+                metrics.dropped();
+                free.add(dropped);
+            }
+        }
+    }
+
+    private void respond(WorkQueue<Request> requests, BlockingQueue<Request> free, ServerMetrics metrics, int worker) {
+        while (true) {
+            Request request;
+            try {
+                request = requests.poll(receiving ? POLL_TIMEOUT : 0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (request == null) {
+                if (!receiving) {
+                    return;
+                }
+                continue;
+            }
+            long start = System.nanoTime();
+            DatagramPacket packet = request.packet;
+            packet.setData(request.buffer, 0, PREFIX.length + packet.getLength());
+            try {
+                request.socket.send(packet);
+                metrics.sent(packet.getLength(), request.receiveTime);
+            } catch (IOException e) {
+                metrics.dropped();
+                if (!request.socket.isClosed()) {
+                    System.err.println("Couldn't send response: " + e.getMessage());
+                }
+            }
+            metrics.busy(worker, System.nanoTime() - start);
+            free.add(request);
+        }
+    }
+
+    private static void serveBatched(DatagramChannel channel, ServerMetrics metrics, int worker) {
+        ByteBuffer[] buffers = new ByteBuffer[BATCH_SIZE];
+        SocketAddress[] addresses = new SocketAddress[BATCH_SIZE];
+        long[] receiveTimes = new long[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(PREFIX.length + MAX_DATAGRAM_SIZE).put(PREFIX);
+        }
+        try (Selector selector = Selector.open()) {
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            while (!Thread.currentThread().isInterrupted() && channel.isOpen()) {
+                selector.select();
+                selector.selectedKeys().clear();
+                long start = System.nanoTime();
+                int count = 0;
+                while (count < BATCH_SIZE) {
+                    buffers[count].clear().position(PREFIX.length);
+                    SocketAddress address = channel.receive(buffers[count]);
+                    if (address == null) {
+                        break;
+                    }
+                    receiveTimes[count] = System.nanoTime();
+                    metrics.received(buffers[count].position() - PREFIX.length);
+                    addresses[count++] = address;
+                }
+                for (int i = 0; i < count; i++) {
+                    int size = buffers[i].flip().remaining();
+                    try {
+                        while (channel.send(buffers[i], addresses[i]) == 0) {
+                            key.interestOps(SelectionKey.OP_WRITE);
+                            selector.select();
+                            selector.selectedKeys().clear();
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                        metrics.sent(size, receiveTimes[i]);
+                    } catch (IOException e) {
+                        if (!channel.isOpen()) {
+                            throw e;
+                        }
+                        metrics.dropped();
+                        System.err.println("Couldn't send response: " + e.getMessage());
+                    }
+                }
+                metrics.busy(worker, System.nanoTime() - start);
+            }
+        } catch (ClosedSelectorException ignored) {
+        } catch (IOException e) {
+            if (channel.isOpen()) {
+                System.err.println("I/O error: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -61,26 +487,120 @@ public class HelloUDPServer implements HelloServer {
      */
     @Override
     public void close() {
-        socket.close();
+        closing = true;
+        if (queue != null) {
+            drain();
+        }
+        if (metricsLogger != null) {
+            metricsLogger.shutdownNow();
+            metricsLogger = null;
+        }
+        if (metricsName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+            } catch (JMException e) {
+                System.err.println("Couldn't unregister metrics: " + e.getMessage());
+            }
+            metricsName = null;
+        }
+        for (DatagramSocket socket : sockets) {
+            socket.close();
+        }
+        sockets.clear();
+        for (DatagramChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Couldn't close channel: " + e.getMessage());
+            }
+        }
+        channels.clear();
+        receiving = false;
+        shutdown(receivers);
+        shutdown(service);
+        shutdown(handlers);
+        receivers = null;
+        handlers = null;
+        queue = null;
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        try {
+            receivers.shutdown();
+            receivers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            receiving = false;
+            service.shutdown();
+            if (!service.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                // Workers are stopped before counting, so that no request is both answered and dropped
+                shutdown(service);
+                int dropped = 0;
+                while (queue.poll(0, TimeUnit.NANOSECONDS) != null) {
+                    metrics.dropped();
+                    dropped++;
+                }
+                System.err.println("Drain timeout expired, " + dropped + " queued requests are dropped");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void shutdown(ExecutorService service) {
+        if (service == null) {
+            return;
+        }
         service.shutdownNow();
+        try {
+            service.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     * Main method that starts server. Arguments: port threads
+     * Main method that starts server. Arguments: port threads [queueCapacity dropPolicy]
+     * Working threads receive requests themselves unless queue capacity and drop policy are given.
      *
      * @param args program arguments
      */
     public static void main(String[] args) {
-        if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
+        if (args == null || (args.length != 2 && args.length != 4) || Arrays.asList(args).contains(null)) {
             System.err.println("Invalid arguments");
             return;
         }
+        DropPolicy dropPolicy = null;
+        if (args.length == 4) {
+            try {
+                dropPolicy = DropPolicy.valueOf(args[3]);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Drop policy must be one of " + Arrays.toString(DropPolicy.values()));
+                return;
+            }
+        }
         try {
             int port = Integer.parseInt(args[0]);
             int threads = Integer.parseInt(args[1]);
-            new HelloUDPServer().start(port, threads);
+            HelloUDPServer server = dropPolicy == null
+                    ? new HelloUDPServer(ThreadMode.PLATFORM, false, false, METRICS_PERIOD)
+                    : new HelloUDPServer(ThreadMode.PLATFORM, false, METRICS_PERIOD,
+                    Integer.parseInt(args[2]), dropPolicy, DRAIN_TIMEOUT);
+            server.start(port, threads);
         } catch (NumberFormatException e) {
-            System.err.println("Port, threads must be an integer argument");
+            System.err.println("Port, threads and queue capacity must be integer arguments");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static class Request {
+        private final byte[] buffer = new byte[PREFIX.length + MAX_DATAGRAM_SIZE];
+        private final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        private DatagramSocket socket;
+        private long receiveTime;
+
+        Request() {
+            System.arraycopy(PREFIX, 0, buffer, 0, PREFIX.length);
         }
     }
 }
@@ -0,0 +1,93 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloClient;
+import info.kgeorgiy.java.advanced.hello.HelloServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Compares hello clients and servers on impaired networks simulated by {@link LossyUDPProxy}.
+ * Arguments: {@code [clients [requests [port]]]}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class LossyNetworkBenchmark {
+    private static final String PREFIX = "lossy_";
+    private static final long SEED = 239;
+
+    private static final List<HelloBenchmark.Variant<NetworkConditions>> CONDITIONS = List.of(
+            new HelloBenchmark.Variant<>("perfect", () -> NetworkConditions.PERFECT),
+            new HelloBenchmark.Variant<>("1% loss", () -> new NetworkConditions(0.01, 0, 0, 0, 0)),
+            new HelloBenchmark.Variant<>("10% loss", () -> new NetworkConditions(0.1, 0, 0, 0, 0)),
+            new HelloBenchmark.Variant<>("5 ms, 2 ms jitter", () -> new NetworkConditions(0, 5, 2, 0, 0)),
+            new HelloBenchmark.Variant<>("10% reorder", () -> new NetworkConditions(0, 1, 1, 0.1, 0)),
+            new HelloBenchmark.Variant<>("10% duplicate", () -> new NetworkConditions(0, 1, 0, 0, 0.1)),
+            new HelloBenchmark.Variant<>("mixed", () -> new NetworkConditions(0.05, 5, 5, 0.05, 0.05))
+    );
+
+    /**
+     * Runs every client against every server under every network conditions and prints reports.
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        int clients;
+        int requests;
+        int port;
+        try {
+            clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+            requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            port = args.length > 2 ? Integer.parseInt(args[2]) : 28_900;
+        } catch (NumberFormatException e) {
+            System.err.println("Clients, requests, port must be an integer argument");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        PrintStream out = System.out;
+        for (HelloBenchmark.Variant<NetworkConditions> conditions : CONDITIONS) {
+            for (HelloBenchmark.Variant<HelloServer> server : HelloBenchmark.SERVERS) {
+                for (HelloBenchmark.Variant<HelloClient> client : HelloBenchmark.CLIENTS) {
+                    try {
+                        Report report = run(server.factory().get(), client.factory().get(), conditions.factory().get(),
+                                port, threads, clients, requests);
+                        out.printf("%-20s %-24s %-20s %8d ms %10.0f requests/s   %s%n",
+                                conditions.name(), server.name(), client.name(), report.time(),
+                                clients * (double) requests / Math.max(report.time(), 1) * 1000, report.statistics());
+                    } catch (IOException e) {
+                        System.err.println("Couldn't start proxy: " + e.getMessage());
+                    } catch (UnsupportedOperationException e) {
+                        out.printf("%-20s %-24s %-20s skipped: %s%n",
+                                conditions.name(), server.name(), client.name(), e.getMessage());
+                    }
+                    port += 2;
+                }
+            }
+        }
+    }
+
+    private static Report run(HelloServer server, HelloClient client, NetworkConditions conditions, int port,
+                              int threads, int clients, int requests) throws IOException {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try (server) {
+            server.start(port, threads);
+            LossyUDPProxy proxy = new LossyUDPProxy(port + 1, new InetSocketAddress("localhost", port), conditions, SEED);
+            long time;
+            try (proxy) {
+                long start = System.currentTimeMillis();
+                client.run("localhost", port + 1, PREFIX, clients, requests);
+                time = System.currentTimeMillis() - start;
+            }
+            return new Report(time, proxy.getStatistics());
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private record Report(long time, ClientStatistics statistics) {
+    }
+}
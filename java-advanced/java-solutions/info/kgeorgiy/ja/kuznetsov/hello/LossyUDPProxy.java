@@ -0,0 +1,248 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process UDP proxy that forwards datagrams between hello clients and a server
+ * under given {@link NetworkConditions}. Every client address gets its own upstream socket,
+ * so responses are routed back to the client that sent the request.
+ * The proxy also measures latency from the first copy of a request to the first response delivered to the client.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class LossyUDPProxy implements AutoCloseable {
+    private static final int MAX_DATAGRAM_SIZE = 65_507;
+
+    private final SocketAddress server;
+    private final NetworkConditions conditions;
+    private final Random random;
+    private final Selector selector;
+    private final DatagramChannel front;
+    private final ExecutorService thread = Executors.newSingleThreadExecutor();
+    private final ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+    private final Map<SocketAddress, DatagramChannel> upstreams = new HashMap<>();
+    private final Queue<Delivery> deliveries = new PriorityQueue<>(Comparator.comparingLong(Delivery::time));
+    private final Map<SocketAddress, Map<String, Long>> pending = new HashMap<>();
+    private long[] latencies = new long[1024];
+    private int answered;
+    private long requests;
+    private long retransmissions;
+
+    /**
+     * Starts proxy on the given port.
+     *
+     * @param port       port for clients
+     * @param server     address of server
+     * @param conditions impairments of forwarded datagrams
+     * @param seed       seed of random impairments
+     * @throws IOException if socket couldn't be opened
+     */
+    public LossyUDPProxy(int port, SocketAddress server, NetworkConditions conditions, long seed) throws IOException {
+        this.server = server;
+        this.conditions = conditions;
+        this.random = new Random(seed);
+        selector = Selector.open();
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            thread.shutdownNow();
+            throw e;
+        }
+        front = channel;
+        thread.submit(this::run);
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted() && selector.isOpen()) {
+                long now = System.nanoTime();
+                while (!deliveries.isEmpty() && deliveries.peek().time() <= now) {
+                    deliver(deliveries.poll());
+                }
+                if (deliveries.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deliveries.peek().time() - now)));
+                }
+                for (Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); ) {
+                    SelectionKey key = i.next();
+                    i.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        if (key.channel() == front) {
+                            receiveRequests();
+                        } else {
+                            receiveResponses((DatagramChannel) key.channel(), (SocketAddress) key.attachment());
+                        }
+                    }
+                }
+            }
+        } catch (ClosedSelectorException ignored) {
+        } catch (IOException e) {
+            if (selector.isOpen()) {
+                System.err.println("Proxy I/O error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void receiveRequests() throws IOException {
+        for (SocketAddress client = receive(front); client != null; client = receive(front)) {
+            DatagramChannel upstream = upstreams.get(client);
+            if (upstream == null) {
+                upstream = DatagramChannel.open();
+                upstream.connect(server);
+                upstream.configureBlocking(false);
+                upstream.register(selector, SelectionKey.OP_READ, client);
+                upstreams.put(client, upstream);
+            }
+            byte[] data = Arrays.copyOf(buffer.array(), buffer.position());
+            requests++;
+            if (pending.computeIfAbsent(client, address -> new HashMap<>())
+                    .putIfAbsent(new String(data, StandardCharsets.UTF_8), System.nanoTime()) != null) {
+                retransmissions++;
+            }
+            schedule(upstream, null, data);
+        }
+    }
+
+    private void receiveResponses(DatagramChannel upstream, SocketAddress client) {
+        while (true) {
+            try {
+                if (receive(upstream) == null) {
+                    return;
+                }
+            } catch (IOException e) {
+                return;
+            }
+            schedule(front, client, Arrays.copyOf(buffer.array(), buffer.position()));
+        }
+    }
+
+    private SocketAddress receive(DatagramChannel channel) throws IOException {
+        buffer.clear();
+        return channel.receive(buffer);
+    }
+
+    private void schedule(DatagramChannel channel, SocketAddress target, byte[] data) {
+        if (random.nextDouble() < conditions.loss()) {
+            return;
+        }
+        int copies = random.nextDouble() < conditions.duplicate() ? 2 : 1;
+        for (int i = 0; i < copies; i++) {
+            deliveries.add(new Delivery(channel, target, data, System.nanoTime() + conditions.delay(random)));
+        }
+    }
+
+    private void deliver(Delivery delivery) {
+        try {
+            if (delivery.target() == null) {
+                delivery.channel().write(ByteBuffer.wrap(delivery.data()));
+            } else {
+                delivery.channel().send(ByteBuffer.wrap(delivery.data()), delivery.target());
+                answer(delivery.target(), new String(delivery.data(), StandardCharsets.UTF_8));
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void answer(SocketAddress client, String response) {
+        Map<String, Long> clientRequests = pending.get(client);
+        if (clientRequests == null) {
+            return;
+        }
+        String request = null;
+        for (String candidate : clientRequests.keySet()) {
+            if (response.contains(candidate) && (request == null || candidate.length() > request.length())) {
+                request = candidate;
+            }
+        }
+        if (request != null) {
+            if (answered == latencies.length) {
+                latencies = Arrays.copyOf(latencies, answered * 2);
+            }
+            latencies[answered++] = System.nanoTime() - clientRequests.remove(request);
+        }
+    }
+
+    /**
+     * Returns statistics of requests that went through the proxy.
+     * Requests that weren't answered by the moment of close are counted as lost.
+     * Should be called after the proxy is closed.
+     *
+     * @return {@link ClientStatistics} statistics of forwarded requests
+     */
+    public ClientStatistics getStatistics() {
+        long lost = 0;
+        for (Map<String, Long> clientRequests : pending.values()) {
+            lost += clientRequests.size();
+        }
+        ClientStatistics statistics = new ClientStatistics();
+        statistics.add(requests, retransmissions, lost, latencies, answered);
+        return statistics;
+    }
+
+    /**
+     * Stops proxy and closes all sockets.
+     */
+    @Override
+    public void close() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Couldn't close selector: " + e.getMessage());
+        }
+        thread.shutdownNow();
+        try {
+            thread.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeChannel(front);
+        upstreams.values().forEach(LossyUDPProxy::closeChannel);
+    }
+
+    private static void closeChannel(DatagramChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Couldn't close channel: " + e.getMessage());
+        }
+    }
+
+    private record Delivery(DatagramChannel channel, SocketAddress target, byte[] data, long time) {
+    }
+}
@@ -0,0 +1,50 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.util.Random;
+
+/**
+ * Impairments that {@link LossyUDPProxy} applies to every forwarded datagram.
+ * Delay of a datagram is {@code latency} plus exponentially distributed jitter with mean {@code jitter}.
+ * Reordered datagrams are delayed once more, duplicated ones are delivered twice with independent delays.
+ *
+ * @param loss      probability to drop a datagram
+ * @param latency   base one-way delay in milliseconds
+ * @param jitter    mean of extra one-way delay in milliseconds
+ * @param reorder   probability to delay a datagram once more, so later datagrams overtake it
+ * @param duplicate probability to deliver a datagram twice
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public record NetworkConditions(double loss, double latency, double jitter, double reorder, double duplicate) {
+    /**
+     * Network without impairments.
+     */
+    public static final NetworkConditions PERFECT = new NetworkConditions(0, 0, 0, 0, 0);
+
+    /**
+     * Checks that probabilities and delays are valid.
+     */
+    public NetworkConditions {
+        if (!isProbability(loss) || !isProbability(reorder) || !isProbability(duplicate)) {
+            throw new IllegalArgumentException("Probabilities must be from 0 to 1");
+        }
+        if (!(latency >= 0) || !(jitter >= 0)) {
+            throw new IllegalArgumentException("Delays must be non-negative");
+        }
+    }
+
+    private static boolean isProbability(double value) {
+        return 0 <= value && value <= 1;
+    }
+
+    long delay(Random random) {
+        double delay = sampleDelay(random);
+        if (random.nextDouble() < reorder) {
+            delay += sampleDelay(random);
+        }
+        return (long) (delay * 1_000_000);
+    }
+
+    private double sampleDelay(Random random) {
+        return latency + (jitter == 0 ? 0 : -jitter * Math.log(1 - random.nextDouble()));
+    }
+}
@@ -0,0 +1,74 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+/**
+ * Retransmission timeout estimator as described in
+ * <a href="https://www.rfc-editor.org/rfc/rfc6298">RFC 6298</a>.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+class RttEstimator {
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    private static final int K = 4;
+    private static final int MAX_BACKOFFS = 1;
+    private static final double GRANULARITY = 1e6;
+
+    private final long minTimeout;
+    private final long maxTimeout;
+    private double smoothed;
+    private double variance;
+    private boolean sampled;
+    private long estimated;
+    private long timeout;
+
+    /**
+     * Creates estimator. All values are in nanoseconds.
+     *
+     * @param initialTimeout timeout before the first measurement
+     * @param minTimeout     lower bound of timeout
+     * @param maxTimeout     upper bound of timeout, including backoff
+     */
+    RttEstimator(long initialTimeout, long minTimeout, long maxTimeout) {
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.estimated = initialTimeout;
+        this.timeout = initialTimeout;
+    }
+
+    /**
+     * Updates estimation with round-trip time of an answered request.
+     * Samples of retransmitted requests are ambiguous and don't change estimation (Karn's rule),
+     * but still prove the path alive, so timeout returns to its value before backoff.
+     *
+     * @param rtt           measured round-trip time in nanoseconds
+     * @param retransmitted whether request was sent more than once
+     */
+    void sample(long rtt, boolean retransmitted) {
+        if (retransmitted) {
+            timeout = estimated;
+            return;
+        }
+        if (sampled) {
+            variance = (1 - BETA) * variance + BETA * Math.abs(smoothed - rtt);
+            smoothed = (1 - ALPHA) * smoothed + ALPHA * rtt;
+        } else {
+            smoothed = rtt;
+            variance = rtt / 2.0;
+            sampled = true;
+        }
+        estimated = Math.max(minTimeout, Math.min(maxTimeout, (long) (smoothed + Math.max(GRANULARITY, K * variance))));
+        timeout = estimated;
+    }
+
+    /**
+     * Doubles timeout after a retransmission, at most {@value #MAX_BACKOFFS} times over the estimated timeout,
+     * so that sustained random loss doesn't push timeout to its upper bound.
+     */
+    void backoff() {
+        timeout = Math.min(maxTimeout, Math.min(estimated << MAX_BACKOFFS, timeout * 2));
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,130 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of a hello server.
+ * Counters are updated by working threads without locks and may be read at any moment.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder receivedPackets = new LongAdder();
+    private final LongAdder sentPackets = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder droppedPackets = new LongAdder();
+    private final LongAdder[] busyTime;
+    private final LongAdder[] histogram = newAdders(BUCKETS);
+
+    ServerMetrics(int workers) {
+        busyTime = newAdders(workers);
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sum(LongAdder[] adders, long unit) {
+        long[] result = new long[adders.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = adders[i].sum() / unit;
+        }
+        return result;
+    }
+
+    void received(int bytes) {
+        receivedPackets.increment();
+        receivedBytes.add(bytes);
+    }
+
+    void sent(int bytes, long receiveTime) {
+        sentPackets.increment();
+        sentBytes.add(bytes);
+        histogram[BUCKETS - Long.numberOfLeadingZeros(Math.max(0, System.nanoTime() - receiveTime))].increment();
+    }
+
+    void dropped() {
+        droppedPackets.increment();
+    }
+
+    void busy(int worker, long time) {
+        busyTime[worker].add(time);
+    }
+
+    @Override
+    public long getReceivedPackets() {
+        return receivedPackets.sum();
+    }
+
+    @Override
+    public long getSentPackets() {
+        return sentPackets.sum();
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    @Override
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+
+    @Override
+    public long getDroppedPackets() {
+        return droppedPackets.sum();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        long answered = sentPackets.sum() + droppedPackets.sum();
+        return Math.max(0, receivedPackets.sum() - answered);
+    }
+
+    @Override
+    public long[] getBusyTime() {
+        return sum(busyTime, 1_000_000);
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return sum(histogram, 1);
+    }
+
+    @Override
+    public double getLatency(double percentile) {
+        long[] buckets = getLatencyHistogram();
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        for (int i = 0; i < BUCKETS; i++) {
+            rank -= buckets[i];
+            if (rank <= 0 && buckets[i] > 0) {
+                return (1L << i) / 1e3;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        long busy = 0;
+        for (long time : getBusyTime()) {
+            busy += time;
+        }
+        return String.format("received %d (%d bytes), sent %d (%d bytes), dropped %d, queue %d, "
+                        + "busy %d ms, p50 %.1f us, p99 %.1f us",
+                getReceivedPackets(), getReceivedBytes(), getSentPackets(), getSentBytes(), getDroppedPackets(),
+                getQueueDepth(), busy, getLatency(50), getLatency(99));
+    }
+}
@@ -0,0 +1,73 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+/**
+ * Management interface of hello server metrics.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public interface ServerMetricsMXBean {
+    /**
+     * Returns number of received requests.
+     *
+     * @return number of received datagrams
+     */
+    long getReceivedPackets();
+
+    /**
+     * Returns number of sent responses.
+     *
+     * @return number of sent datagrams
+     */
+    long getSentPackets();
+
+    /**
+     * Returns total size of received requests.
+     *
+     * @return number of received bytes
+     */
+    long getReceivedBytes();
+
+    /**
+     * Returns total size of sent responses.
+     *
+     * @return number of sent bytes
+     */
+    long getSentBytes();
+
+    /**
+     * Returns number of requests that were received but not answered.
+     *
+     * @return number of dropped requests and failed sends
+     */
+    long getDroppedPackets();
+
+    /**
+     * Returns number of requests that are received but neither answered nor dropped yet.
+     *
+     * @return current queue depth
+     */
+    long getQueueDepth();
+
+    /**
+     * Returns time every working thread spent on serving requests.
+     *
+     * @return busy time of every working thread in milliseconds
+     */
+    long[] getBusyTime();
+
+    /**
+     * Returns histogram of latencies from request receive to response send.
+     * Bucket {@code i} counts latencies from {@code 2^(i-1)} inclusive to {@code 2^i} exclusive nanoseconds.
+     *
+     * @return number of requests in every bucket
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Returns upper bound of latency percentile from request receive to response send.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return latency in microseconds
+     */
+    double getLatency(double percentile);
+}
@@ -0,0 +1,62 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Kind of threads that run hello tasks.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public enum ThreadMode {
+    /**
+     * Fixed pool of platform threads.
+     */
+    PLATFORM,
+    /**
+     * New virtual thread for every task. Requires Java 21 or newer.
+     */
+    VIRTUAL;
+
+    private static final Method VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    private static Method findVirtualExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks that threads of this mode are available in the running JVM.
+     *
+     * @throws UnsupportedOperationException if virtual threads are requested on Java older than 21
+     */
+    public void checkSupported() {
+        if (this == VIRTUAL && VIRTUAL_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer, running "
+                    + Runtime.version().feature());
+        }
+    }
+
+    /**
+     * Creates executor for tasks of this mode.
+     *
+     * @param threads number of platform threads
+     * @return {@link ExecutorService} created executor
+     * @throws UnsupportedOperationException if threads of this mode are not available
+     */
+    public ExecutorService newExecutor(int threads) {
+        checkSupported();
+        if (this == VIRTUAL) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException("Couldn't create virtual thread executor", e);
+            }
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+}
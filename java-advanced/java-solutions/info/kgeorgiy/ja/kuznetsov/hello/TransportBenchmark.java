@@ -0,0 +1,55 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import info.kgeorgiy.java.advanced.hello.HelloClient;
+import info.kgeorgiy.java.advanced.hello.HelloServer;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares throughput of UDP and TCP hello implementations.
+ * Arguments: {@code [clients [requests [port]]]}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class TransportBenchmark {
+    private static final List<Transport> TRANSPORTS = List.of(
+            new Transport("udp", HelloUDPServer::new, HelloUDPClient::new),
+            new Transport("udp batched, windowed", () -> new HelloUDPServer(ThreadMode.PLATFORM, true),
+                    () -> new HelloUDPClient(ThreadMode.PLATFORM, Integer.MAX_VALUE, 16)),
+            new Transport("udp nonblocking", HelloUDPNonblockingServer::new, HelloUDPNonblockingClient::new),
+            new Transport("tcp", HelloTCPServer::new, HelloTCPClient::new),
+            new Transport("tcp pipelined", HelloTCPServer::new, () -> new HelloTCPClient(16))
+    );
+
+    /**
+     * Runs every transport and prints request rates.
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        int clients;
+        int requests;
+        int port;
+        try {
+            clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+            requests = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            port = args.length > 2 ? Integer.parseInt(args[2]) : 28_900;
+        } catch (NumberFormatException e) {
+            System.err.println("Clients, requests, port must be an integer argument");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        PrintStream out = System.out;
+        for (Transport transport : TRANSPORTS) {
+            long time = HelloBenchmark.run(transport.server().get(), transport.client().get(),
+                    port++, threads, clients, requests);
+            out.printf("%-24s %10d ms %12.0f requests/s%n", transport.name(),
+                    time, clients * (double) requests / Math.max(time, 1) * 1000);
+        }
+    }
+
+    private record Transport(String name, Supplier<HelloServer> server, Supplier<HelloClient> client) {
+    }
+}
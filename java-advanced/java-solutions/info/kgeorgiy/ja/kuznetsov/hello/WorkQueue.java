@@ -0,0 +1,164 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded blocking queue that never blocks producers: when it is full, a request is dropped by {@link DropPolicy}.
+ *
+ * @param <T> type of requests
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+class WorkQueue<T> {
+    private final int capacity;
+    private final DropPolicy policy;
+    private final Function<T, Object> source;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Deque<T> queue = new ArrayDeque<>();
+    private final Map<Object, Deque<T>> sourceQueues = new HashMap<>();
+    private final Queue<Object> sources = new ArrayDeque<>();
+    // Sources bucketed by number of their queued requests, so the heaviest one is found in constant time
+    private final List<Set<Object>> depths = new ArrayList<>();
+    private int maxDepth;
+    private int size;
+
+    /**
+     * Creates queue.
+     *
+     * @param capacity maximal number of queued requests
+     * @param policy   drop policy of full queue
+     * @param source   source of a request, used by {@link DropPolicy#SHED_BY_SOURCE}
+     */
+    WorkQueue(int capacity, DropPolicy policy, Function<T, Object> source) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.source = source;
+    }
+
+    /**
+     * Adds request to the queue.
+     *
+     * @param request request to add
+     * @return dropped request, maybe {@code request} itself, or {@code null} if nothing was dropped
+     */
+    T offer(T request) {
+        lock.lock();
+        try {
+            T dropped = null;
+            if (policy == DropPolicy.SHED_BY_SOURCE) {
+                Object requestSource = source.apply(request);
+                Deque<T> requestQueue = sourceQueues.get(requestSource);
+                if (size == capacity) {
+                    if ((requestQueue == null ? 0 : requestQueue.size()) + 1 >= maxDepth) {
+                        return request;
+                    }
+                    Object heaviest = depths.get(maxDepth).iterator().next();
+                    dropped = sourceQueues.get(heaviest).pollLast();
+                    move(heaviest, maxDepth, maxDepth - 1);
+                    size--;
+                }
+                if (requestQueue == null) {
+                    requestQueue = new ArrayDeque<>();
+                    sourceQueues.put(requestSource, requestQueue);
+                    sources.add(requestSource);
+                }
+                requestQueue.add(request);
+                move(requestSource, requestQueue.size() - 1, requestQueue.size());
+            } else {
+                if (size == capacity) {
+                    if (policy == DropPolicy.DROP_NEWEST) {
+                        return request;
+                    }
+                    dropped = queue.poll();
+                    size--;
+                }
+                queue.add(request);
+            }
+            size++;
+            notEmpty.signal();
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void move(Object source, int from, int to) {
+        if (from > 0) {
+            depths.get(from).remove(source);
+        }
+        if (to > 0) {
+            while (depths.size() <= to) {
+                depths.add(new LinkedHashSet<>());
+            }
+            depths.get(to).add(source);
+        }
+        if (to > maxDepth) {
+            maxDepth = to;
+        } else if (from == maxDepth && depths.get(from).isEmpty()) {
+            maxDepth = to;
+        }
+    }
+
+    /**
+     * Retrieves request, waiting up to the given time.
+     *
+     * @param timeout maximal time to wait
+     * @param unit    unit of {@code timeout}
+     * @return request or {@code null} if timeout has elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            size--;
+            if (policy != DropPolicy.SHED_BY_SOURCE) {
+                return queue.poll();
+            }
+            Object next = sources.poll();
+            Deque<T> sourceQueue = sourceQueues.get(next);
+            T request = sourceQueue.poll();
+            move(next, sourceQueue.size() + 1, sourceQueue.size());
+            if (sourceQueue.isEmpty()) {
+                sourceQueues.remove(next);
+            } else {
+                sources.add(next);
+            }
+            return request;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of queued requests.
+     *
+     * @return queue size
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writer that encodes text into large direct buffers and writes filled buffers
+ * to the channel from a dedicated thread. Underlying channel is not closed.
+ * A failure of the writer thread is rethrown by the next {@link #write}, {@link #flush} or {@link #close}.
+ */
+class ChannelWriter extends Writer {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BUFFERS = 4;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final Thread thread;
+    private final long started = System.nanoTime();
+    private ByteBuffer current;
+    // UTF-8 encoder leaves at most a trailing high surrogate unconsumed until the next write
+    private char surrogate;
+    private int pending;
+    private boolean stopped;
+    private boolean closed;
+    private volatile Throwable error;
+
+    private long bytes;
+    private long writes;
+    private long busyNanos;
+    private long waitedNanos;
+    private long finished;
+
+    ChannelWriter(FileChannel channel) {
+        this.channel = channel;
+        for (int i = 0; i < BUFFERS; i++) {
+            free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        current = free.poll();
+        thread = new Thread(this::run, "walk-writer");
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                ByteBuffer buffer = full.take();
+                if (buffer == END) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    if (error == null) {
+                        while (buffer.hasRemaining()) {
+                            bytes += channel.write(buffer);
+                        }
+                        writes++;
+                    }
+                } catch (IOException | RuntimeException | Error e) {
+                    // Recorded before the buffer is released, so that a waiting flush sees it
+                    error = e;
+                } finally {
+                    busyNanos += System.nanoTime() - start;
+                    buffer.clear();
+                    free.add(buffer);
+                    synchronized (this) {
+                        pending--;
+                        notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            error = new InterruptedIOException("Writer thread interrupted");
+        } catch (RuntimeException | Error e) {
+            error = e;
+        } finally {
+            synchronized (this) {
+                stopped = true;
+                notifyAll();
+            }
+            // Wakes up producer waiting for a free buffer that will never be returned
+            free.offer(END);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        checkError();
+        if (len == 0) {
+            return;
+        }
+        if (surrogate != 0) {
+            char[] pair = {surrogate, cbuf[off]};
+            surrogate = 0;
+            encode(CharBuffer.wrap(pair), false);
+            off++;
+            len--;
+        }
+        encode(CharBuffer.wrap(cbuf, off, len), false);
+    }
+
+    private void encode(CharBuffer input, boolean endOfInput) throws IOException {
+        while (encoder.encode(input, current, endOfInput).isOverflow()) {
+            submit();
+        }
+        if (input.hasRemaining()) {
+            surrogate = input.get();
+        }
+    }
+
+    private void submit() throws IOException {
+        current.flip();
+        synchronized (this) {
+            pending++;
+        }
+        full.add(current);
+        long start = System.nanoTime();
+        try {
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        waitedNanos += System.nanoTime() - start;
+        if (current == END) {
+            free.offer(END);
+            checkError();
+        }
+    }
+
+    /**
+     * Hands over buffered text and waits until everything is written to the channel.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkError();
+        if (current.position() > 0) {
+            submit();
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            while (pending > 0 && !stopped) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        waitedNanos += System.nanoTime() - start;
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        Throwable e = error;
+        if (e instanceof IOException io) {
+            throw io;
+        } else if (e != null) {
+            throw new IOException("Writer thread failed", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            checkError();
+            encode(CharBuffer.wrap(surrogate == 0 ? new char[0] : new char[]{surrogate}), true);
+            surrogate = 0;
+            while (encoder.flush(current).isOverflow()) {
+                submit();
+            }
+            flush();
+        } finally {
+            full.add(END);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns throughput statistics. Should be called after the writer is closed.
+     */
+    String getStatistics() {
+        double seconds = (finished - started) / 1e9;
+        return String.format("Written %d bytes in %d writes, %.1f s, %.1f MB/s, writer busy %d ms, producer waited %d ms",
+                bytes, writes, seconds, bytes / 1e6 / Math.max(seconds, 1e-9),
+                busyNanos / 1_000_000, waitedNanos / 1_000_000);
+    }
+}
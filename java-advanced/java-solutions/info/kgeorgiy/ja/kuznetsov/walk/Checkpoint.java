@@ -0,0 +1,74 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Progress of a walk: number of completed input lines and size of the output written for them.
+ */
+class Checkpoint {
+    private final Path file;
+    private final String signature;
+    private long lines;
+    private long offset;
+
+    private Checkpoint(Path file, String signature) {
+        this.file = file;
+        this.signature = signature;
+    }
+
+    /**
+     * Loads checkpoint if it exists and was saved by a walk with the same {@code signature}.
+     */
+    static Checkpoint open(Path file, String signature) {
+        Checkpoint checkpoint = new Checkpoint(file, signature);
+        if (Files.exists(file)) {
+            try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+                if (signature.equals(input.readUTF())) {
+                    long lines = input.readLong();
+                    long offset = input.readLong();
+                    checkpoint.lines = lines;
+                    checkpoint.offset = offset;
+                } else {
+                    System.err.println("Checkpoint belongs to another walk, starting over: " + file);
+                }
+            } catch (SecurityException | IOException e) {
+                System.err.println("Couldn't read checkpoint, starting over: " + file);
+            }
+        }
+        return checkpoint;
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    void reset() {
+        lines = 0;
+        offset = 0;
+    }
+
+    void save(long lines, long offset) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(temp))) {
+            output.writeUTF(signature);
+            output.writeLong(lines);
+            output.writeLong(offset);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.lines = lines;
+        this.offset = offset;
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,150 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Groups files with equal content. Files are bucketed by size, then by hash of their edges,
+ * and only files that still collide are hashed completely.
+ * Symbolic links to regular files are followed as in hashes mode, and a file reached
+ * through several paths is reported once.
+ */
+class DuplicateFinder implements AutoCloseable {
+    private static final int EDGE_SIZE = 4096;
+
+    private final HashAlgorithm algorithm;
+    private final HashCache cache;
+    private final ExecutorService service;
+    private final Map<Long, List<Path>> sizes = new TreeMap<>();
+    private final Set<Object> seen = new HashSet<>();
+
+    DuplicateFinder(int threads, HashAlgorithm algorithm, HashCache cache) {
+        this.algorithm = algorithm;
+        this.cache = cache;
+        this.service = Executors.newFixedThreadPool(threads);
+    }
+
+    void add(String fileName, boolean recursive) {
+        try {
+            Files.walkFileTree(Path.of(fileName), Set.of(), recursive ? Integer.MAX_VALUE : 0,
+                    new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            BasicFileAttributes target = attrs;
+                            if (attrs.isSymbolicLink()) {
+                                try {
+                                    target = Files.readAttributes(file, BasicFileAttributes.class);
+                                } catch (IOException e) {
+                                    // Broken links are skipped as in hashes mode
+                                    return FileVisitResult.CONTINUE;
+                                }
+                            }
+                            // The same file may be reached from overlapping inputs or through links
+                            Object key = target.fileKey() != null
+                                    ? target.fileKey()
+                                    : file.toAbsolutePath().normalize();
+                            if (target.isRegularFile() && seen.add(key)) {
+                                sizes.computeIfAbsent(target.size(), size -> new ArrayList<>()).add(file);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                            System.err.println("Couldn't visit file: " + file);
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } catch (SecurityException | IllegalArgumentException | IOException e) {
+            System.err.println("Couldn't visit file: " + fileName);
+        }
+    }
+
+    /**
+     * Writes groups of duplicate files separated by empty lines.
+     */
+    void write(Writer writer) throws IOException {
+        char[] line = new char[algorithm.getLength() * 2 + 1];
+        boolean first = true;
+        for (Map.Entry<Long, List<Path>> sized : sizes.entrySet()) {
+            if (sized.getValue().size() < 2) {
+                continue;
+            }
+            Map<ByteBuffer, List<Path>> groups = split(sized.getValue(),
+                    path -> HashSumCounter.getPartialHash(path, algorithm, EDGE_SIZE));
+            if (sized.getKey() > 2L * EDGE_SIZE) {
+                Map<ByteBuffer, List<Path>> full = new LinkedHashMap<>();
+                for (List<Path> candidate : groups.values()) {
+                    full.putAll(split(candidate, this::getHash));
+                }
+                groups = full;
+            }
+            for (Map.Entry<ByteBuffer, List<Path>> group : groups.entrySet()) {
+                if (!first) {
+                    writer.write(System.lineSeparator());
+                }
+                first = false;
+                int length = HashSumCounter.toHex(group.getKey().array(), line, 0);
+                line[length++] = ' ';
+                for (Path path : group.getValue()) {
+                    writer.write(line, 0, length);
+                    writer.write(path.toString());
+                    writer.write(System.lineSeparator());
+                }
+            }
+        }
+    }
+
+    private byte[] getHash(Path path) {
+        return cache == null ? HashSumCounter.getHash(path, algorithm) : cache.getHash(path);
+    }
+
+    private Map<ByteBuffer, List<Path>> split(List<Path> group, Function<Path, byte[]> hash) {
+        List<Future<byte[]>> hashes = new ArrayList<>();
+        for (Path path : group) {
+            hashes.add(service.submit(() -> hash.apply(path)));
+        }
+        Map<ByteBuffer, List<Path>> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < group.size(); i++) {
+            byte[] value;
+            try {
+                value = hashes.get(i).get();
+            } catch (ExecutionException e) {
+                value = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                value = null;
+            }
+            if (value == null) {
+                System.err.println("Couldn't read file: " + group.get(i));
+            } else {
+                buckets.computeIfAbsent(ByteBuffer.wrap(value), key -> new ArrayList<>()).add(group.get(i));
+            }
+        }
+        buckets.values().removeIf(bucket -> bucket.size() < 2);
+        return buckets;
+    }
+
+    @Override
+    public void close() {
+        service.shutdownNow();
+    }
+}
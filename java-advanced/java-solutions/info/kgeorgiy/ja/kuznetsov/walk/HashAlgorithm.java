@@ -0,0 +1,99 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+public enum HashAlgorithm {
+    SHA_256("sha256", 32, () -> messageDigest("SHA-256")),
+    SHA_1("sha1", 20, () -> messageDigest("SHA-1")),
+    MD5("md5", 16, () -> messageDigest("MD5")),
+    CRC32C("crc32c", 4, () -> checksum(new CRC32C()));
+
+    private final String name;
+    private final int length;
+    private final ThreadLocal<HashFunction> functions;
+
+    HashAlgorithm(String name, int length, Supplier<HashFunction> factory) {
+        this.name = name;
+        this.length = length;
+        this.functions = ThreadLocal.withInitial(factory);
+    }
+
+    public static HashAlgorithm forName(String name) {
+        return Arrays.stream(values())
+                .filter(algorithm -> algorithm.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown hash algorithm: " + name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns digest length in bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns reset hash function owned by the current thread.
+     */
+    public HashFunction getFunction() {
+        HashFunction function = functions.get();
+        function.reset();
+        return function;
+    }
+
+    private static HashFunction messageDigest(String algorithm) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return new HashFunction() {
+            @Override
+            public void reset() {
+                digest.reset();
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                digest.update(buffer);
+            }
+
+            @Override
+            public byte[] digest() {
+                return digest.digest();
+            }
+        };
+    }
+
+    private static HashFunction checksum(Checksum checksum) {
+        return new HashFunction() {
+            @Override
+            public void reset() {
+                checksum.reset();
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                checksum.update(buffer);
+            }
+
+            @Override
+            public byte[] digest() {
+                int value = (int) checksum.getValue();
+                checksum.reset();
+                return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+            }
+        };
+    }
+}
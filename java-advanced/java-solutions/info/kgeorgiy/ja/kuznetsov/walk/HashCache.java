@@ -0,0 +1,123 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+class HashCache implements AutoCloseable {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HashAlgorithm algorithm;
+    private final DataOutputStream output;
+
+    private HashCache(Path file, HashAlgorithm algorithm) throws IOException {
+        this.algorithm = algorithm;
+        int records = 0;
+        boolean damaged = false;
+        if (Files.exists(file)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (hasMore(input)) {
+                    String key = input.readUTF();
+                    long size = input.readLong();
+                    long modified = input.readLong();
+                    String fileKey = input.readUTF();
+                    byte[] hash = new byte[input.readUnsignedByte()];
+                    input.readFully(hash);
+                    entries.put(key, new Entry(size, modified, fileKey, hash));
+                    records++;
+                }
+            } catch (IOException e) {
+                // Tail of the file was left half-written by an interrupted run
+                damaged = true;
+            }
+        }
+        boolean compact = damaged || records > entries.size() * 2;
+        output = new DataOutputStream(new BufferedOutputStream(compact
+                ? Files.newOutputStream(file)
+                : Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (compact) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static boolean hasMore(DataInputStream input) throws IOException {
+        input.mark(1);
+        boolean hasMore = input.read() >= 0;
+        input.reset();
+        return hasMore;
+    }
+
+    static HashCache open(Path file, HashAlgorithm algorithm) throws IOException {
+        return new HashCache(file, algorithm);
+    }
+
+    byte[] getHash(Path path) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (SecurityException | IOException e) {
+            return HashSumCounter.getHash(path, algorithm);
+        }
+        return getHash(path, attributes);
+    }
+
+    byte[] getHash(Path path, BasicFileAttributes attributes) {
+        String key = algorithm.getName() + ":" + path.toAbsolutePath().normalize();
+        Entry actual = new Entry(
+                attributes.size(),
+                attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS),
+                String.valueOf(attributes.fileKey()),
+                null
+        );
+        Entry cached = entries.get(key);
+        if (cached != null && cached.matches(actual)) {
+            return cached.hash();
+        }
+        byte[] hash = HashSumCounter.getHash(path, algorithm);
+        if (hash != null) {
+            Entry entry = new Entry(actual.size(), actual.modified(), actual.fileKey(), hash);
+            entries.put(key, entry);
+            try {
+                synchronized (output) {
+                    write(key, entry);
+                }
+            } catch (IOException e) {
+                System.err.println("Couldn't write to hash cache: " + e.getMessage());
+            }
+        }
+        return hash;
+    }
+
+    private void write(String key, Entry entry) throws IOException {
+        output.writeUTF(key);
+        output.writeLong(entry.size());
+        output.writeLong(entry.modified());
+        output.writeUTF(entry.fileKey());
+        output.writeByte(entry.hash().length);
+        output.write(entry.hash());
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (output) {
+            output.close();
+        }
+    }
+
+    private record Entry(long size, long modified, String fileKey, byte[] hash) {
+        boolean matches(Entry other) {
+            return size == other.size && modified == other.modified && Objects.equals(fileKey, other.fileKey);
+        }
+    }
+}
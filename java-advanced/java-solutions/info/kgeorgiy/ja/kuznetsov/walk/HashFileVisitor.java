@@ -0,0 +1,75 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+class HashFileVisitor extends SimpleFileVisitor<Path> {
+    private final HashWriter hashWriter;
+    private final Path root;
+    private final String rootName;
+    private final boolean directories;
+    private final Deque<SortedMap<String, CompletableFuture<byte[]>>> children = new ArrayDeque<>();
+
+    HashFileVisitor(HashWriter hashWriter, Path root, String rootName, boolean directories) {
+        this.hashWriter = hashWriter;
+        this.root = root;
+        this.rootName = rootName;
+        this.directories = directories;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (directories) {
+            children.push(new TreeMap<>());
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile()) {
+            addChild(file, hashWriter.add(file, attrs));
+        } else if (attrs.isSymbolicLink() && Files.isRegularFile(file)) {
+            addChild(file, hashWriter.add(file));
+        } else if (attrs.isDirectory()) {
+            addChild(file, hashWriter.addDefault(getName(file)));
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        addChild(file, hashWriter.addDefault(getName(file)));
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+        if (directories) {
+            SortedMap<String, CompletableFuture<byte[]>> contents = children.pop();
+            addChild(dir, exc == null
+                    ? hashWriter.addDirectory(getName(dir), contents)
+                    : hashWriter.addDefault(getName(dir)));
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    private void addChild(Path file, CompletableFuture<byte[]> hash) {
+        if (directories && !children.isEmpty()) {
+            children.peek().put(String.valueOf(file.getFileName()), hash);
+        }
+    }
+
+    private String getName(Path file) {
+        return file == root ? rootName : file.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental hash function. Instances are stateful and must not be shared between threads.
+ */
+public interface HashFunction {
+    void reset();
+
+    void update(ByteBuffer buffer);
+
+    /**
+     * Completes hash computation and resets the function.
+     */
+    byte[] digest();
+}
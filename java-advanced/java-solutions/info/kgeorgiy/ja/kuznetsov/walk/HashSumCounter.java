@@ -1,29 +1,136 @@
 package info.kgeorgiy.ja.kuznetsov.walk;
 
 import java.io.IOException;
-import java.math.BigInteger;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.file.StandardOpenOption;
 
 public class HashSumCounter {
+    public static final long DEFAULT_MAPPED_THRESHOLD = 1L << 24;
+    private static final long MAPPED_WINDOW = 1L << 26;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
     public static String getHashSum(Path path) {
-        try {
-            byte[] bytes = Files.readAllBytes(path);
-            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
-            byte[] result = sha256.digest(bytes);
-            return toHexString(result);
-        } catch (SecurityException | NoSuchAlgorithmException | IOException e) {
-            return getDefaultHashSum();
+        return getHashSum(path, HashAlgorithm.SHA_256);
+    }
+
+    public static String getHashSum(Path path, long mappedThreshold) {
+        return getHashSum(path, HashAlgorithm.SHA_256, mappedThreshold);
+    }
+
+    public static String getHashSum(Path path, HashAlgorithm algorithm) {
+        return getHashSum(path, algorithm, DEFAULT_MAPPED_THRESHOLD);
+    }
+
+    public static String getHashSum(Path path, HashAlgorithm algorithm, long mappedThreshold) {
+        byte[] hash = getHash(path, algorithm, mappedThreshold);
+        return hash == null ? getDefaultHashSum(algorithm) : toHexString(hash);
+    }
+
+    /**
+     * Returns raw hash of the file or {@code null} if the file couldn't be read.
+     */
+    static byte[] getHash(Path path, HashAlgorithm algorithm) {
+        return getHash(path, algorithm, DEFAULT_MAPPED_THRESHOLD);
+    }
+
+    static byte[] getHash(Path path, HashAlgorithm algorithm, long mappedThreshold) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            HashFunction function = algorithm.getFunction();
+            long size = channel.size();
+            if (size >= mappedThreshold) {
+                try {
+                    updateMapped(function, channel, size);
+                } catch (InternalError e) {
+                    // Reading a mapped region of a file truncated meanwhile faults
+                    return null;
+                }
+            } else {
+                updateBuffered(function, channel);
+            }
+            return function.digest();
+        } catch (SecurityException | IllegalStateException | IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns hash of the first and the last {@code edge} bytes of the file
+     * or {@code null} if the file couldn't be read.
+     */
+    static byte[] getPartialHash(Path path, HashAlgorithm algorithm, int edge) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            HashFunction function = algorithm.getFunction();
+            long size = channel.size();
+            if (size <= 2L * edge) {
+                updateBuffered(function, channel);
+            } else {
+                updateRegion(function, channel, 0, edge);
+                updateRegion(function, channel, size - edge, edge);
+            }
+            return function.digest();
+        } catch (SecurityException | IllegalStateException | IOException e) {
+            return null;
+        }
+    }
+
+    private static void updateRegion(HashFunction function, FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        buffer.limit(Math.min(length, buffer.capacity()));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        function.update(buffer);
+    }
+
+    private static void updateBuffered(HashFunction function, FileChannel channel) throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            function.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static void updateMapped(HashFunction function, FileChannel channel, long size) throws IOException {
+        for (long position = 0; position < size; position += MAPPED_WINDOW) {
+            function.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_WINDOW, size - position)));
         }
     }
 
     private static String toHexString(byte[] bytes) {
-        return String.format("%064x", new BigInteger(1, bytes));
+        char[] chars = new char[bytes.length * 2];
+        toHex(bytes, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Writes hex representation of {@code bytes} to {@code chars} starting at {@code offset}.
+     *
+     * @return offset after the last written char
+     */
+    static int toHex(byte[] bytes, char[] chars, int offset) {
+        for (byte b : bytes) {
+            chars[offset++] = HEX_DIGITS[(b >> 4) & 0xf];
+            chars[offset++] = HEX_DIGITS[b & 0xf];
+        }
+        return offset;
     }
 
     public static String getDefaultHashSum() {
-        return toHexString(new byte[0]);
+        return getDefaultHashSum(HashAlgorithm.SHA_256);
+    }
+
+    public static String getDefaultHashSum(HashAlgorithm algorithm) {
+        return toHexString(new byte[algorithm.getLength()]);
     }
 }
\ No newline at end of file
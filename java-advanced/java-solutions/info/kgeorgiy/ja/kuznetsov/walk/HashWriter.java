@@ -0,0 +1,152 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class HashWriter implements AutoCloseable {
+    private static final int PENDING_PER_THREAD = 64;
+    private static final byte[] SEPARATOR = {0};
+
+    private final Writer writer;
+    private final ExecutorService service;
+    private final HashAlgorithm algorithm;
+    private final HashCache cache;
+    private final int maxPending;
+    private final Queue<Entry> pending = new ArrayDeque<>();
+    private final byte[] defaultHash;
+    private final char[] line;
+
+    HashWriter(Writer writer, int threads, HashAlgorithm algorithm, HashCache cache) {
+        this.writer = writer;
+        this.algorithm = algorithm;
+        this.cache = cache;
+        this.service = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        this.maxPending = Math.max(1, threads) * PENDING_PER_THREAD;
+        this.defaultHash = new byte[algorithm.getLength()];
+        this.line = new char[algorithm.getLength() * 2 + 1];
+    }
+
+    CompletableFuture<byte[]> add(Path path) {
+        return add(path, null);
+    }
+
+    CompletableFuture<byte[]> add(Path path, BasicFileAttributes attributes) {
+        if (service == null) {
+            return add(CompletableFuture.completedFuture(getHash(path, attributes)), path.toString());
+        }
+        return add(CompletableFuture.supplyAsync(() -> getHash(path, attributes), service), path.toString());
+    }
+
+    private byte[] getHash(Path path, BasicFileAttributes attributes) {
+        if (cache == null) {
+            return HashSumCounter.getHash(path, algorithm);
+        }
+        return attributes == null ? cache.getHash(path) : cache.getHash(path, attributes);
+    }
+
+    CompletableFuture<byte[]> addDefault(String fileName) {
+        return add(CompletableFuture.completedFuture(null), fileName);
+    }
+
+    /**
+     * Adds digest of a directory computed from names and hashes of its children.
+     *
+     * @param children children hashes by name, iterated in sorted order
+     */
+    CompletableFuture<byte[]> addDirectory(String fileName, SortedMap<String, CompletableFuture<byte[]>> children) {
+        if (service == null) {
+            return add(CompletableFuture.completedFuture(combine(children)), fileName);
+        }
+        return add(CompletableFuture.allOf(children.values().toArray(CompletableFuture[]::new))
+                .thenApplyAsync(ignored -> combine(children), service), fileName);
+    }
+
+    private byte[] combine(SortedMap<String, CompletableFuture<byte[]>> children) {
+        HashFunction function = algorithm.getFunction();
+        for (Map.Entry<String, CompletableFuture<byte[]>> child : children.entrySet()) {
+            byte[] hash = child.getValue().join();
+            function.update(ByteBuffer.wrap(child.getKey().getBytes(StandardCharsets.UTF_8)));
+            function.update(ByteBuffer.wrap(SEPARATOR));
+            function.update(ByteBuffer.wrap(hash == null ? defaultHash : hash));
+        }
+        return function.digest();
+    }
+
+    private CompletableFuture<byte[]> add(CompletableFuture<byte[]> hash, String fileName) {
+        if (service == null) {
+            write(hash.join(), fileName);
+        } else {
+            enqueue(new Entry(hash, fileName));
+        }
+        return hash;
+    }
+
+    private void enqueue(Entry entry) {
+        pending.add(entry);
+        while (pending.size() > maxPending) {
+            write(pending.poll());
+        }
+    }
+
+    private void write(Entry entry) {
+        byte[] hash;
+        try {
+            hash = entry.hash().get();
+        } catch (ExecutionException e) {
+            hash = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hash = null;
+        }
+        write(hash, entry.fileName());
+    }
+
+    private void write(byte[] hash, String fileName) {
+        int length = HashSumCounter.toHex(hash == null ? defaultHash : hash, line, 0);
+        line[length++] = ' ';
+        try {
+            writer.write(line, 0, length);
+            writer.write(fileName);
+            writer.write(System.lineSeparator());
+        } catch (SecurityException | IOException e) {
+            System.err.println("Couldn't write to file: " + fileName);
+        }
+    }
+
+    /**
+     * Writes all pending lines and flushes underlying writer.
+     */
+    void flush() throws IOException {
+        drain();
+        writer.flush();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            write(pending.poll());
+        }
+    }
+
+    @Override
+    public void close() {
+        drain();
+        if (service != null) {
+            service.shutdownNow();
+        }
+    }
+
+    private record Entry(CompletableFuture<byte[]> hash, String fileName) {
+    }
+}
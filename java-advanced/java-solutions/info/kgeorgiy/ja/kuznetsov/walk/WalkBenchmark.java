@@ -0,0 +1,289 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.math.BigInteger;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures walk throughput on generated trees.
+ * Arguments: {@code [fixture directory [iterations]]}.
+ * An explicit fixture directory is kept between runs and reused once completely generated,
+ * the default temporary one is deleted afterwards.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+public class WalkBenchmark {
+    private static final int TINY_FILES = 20_000;
+    private static final int TINY_SIZE = 512;
+    private static final int HUGE_FILES = 2;
+    private static final long HUGE_SIZE = 1L << 29;
+    private static final int DEPTH = 64;
+    private static final int[] SIZES = {1 << 12, 1 << 16, 1 << 20, 1 << 23, 1 << 26, 1 << 28};
+    private static final int HEX_HASHES = 100_000;
+
+    // Heap allocation is heap usage growth plus everything collected meanwhile,
+    // so threads that start and terminate inside a measured action are accounted for.
+    // Heap usage grows by whole allocation buffers, so tiny amounts may show up as zero
+    private static final Set<String> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .collect(Collectors.toUnmodifiableSet());
+    private static final AtomicLong COLLECTED = new AtomicLong();
+    private static final AtomicLong COLLECTIONS = new AtomicLong();
+    private static final long NOTIFICATION_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+    // Collections finished before the listeners were registered are never notified
+    private static final long INITIAL_COLLECTIONS;
+
+    static {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    GcInfo info = GarbageCollectionNotificationInfo
+                            .from((CompositeData) notification.getUserData()).getGcInfo();
+                    COLLECTED.addAndGet(heapUsed(info.getMemoryUsageBeforeGc()) - heapUsed(info.getMemoryUsageAfterGc()));
+                    COLLECTIONS.incrementAndGet();
+                }
+            }, null, null);
+        }
+        // Counted after registration: a collection in between is both notified and subtracted,
+        // which only makes the wait shorter
+        INITIAL_COLLECTIONS = collectionCount();
+    }
+
+    private final Path root;
+    private final int iterations;
+
+    private WalkBenchmark(Path root, int iterations) {
+        this.root = root;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Generates trees in the fixture directory (temporary by default) and prints results.
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        Path temporary = null;
+        try {
+            Path root;
+            if (args.length > 0) {
+                root = Path.of(args[0]);
+            } else {
+                temporary = Files.createTempDirectory("walk-benchmark");
+                root = temporary;
+            }
+            int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+            new WalkBenchmark(root, iterations).run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+        } finally {
+            if (temporary != null) {
+                try {
+                    delete(temporary);
+                } catch (IOException e) {
+                    System.err.println("Couldn't delete " + temporary + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void run() throws IOException {
+        benchmarkHex();
+        Path tiny = generate(root.resolve("tiny"), TINY_FILES, TINY_SIZE, 1);
+        Path huge = generate(root.resolve("huge"), HUGE_FILES, HUGE_SIZE, 1);
+        Path deep = generate(root.resolve("deep"), TINY_FILES / DEPTH * DEPTH, TINY_SIZE, DEPTH);
+        int processors = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (Path tree : List.of(tiny, huge, deep)) {
+            for (int threads : new int[]{1, processors}) {
+                benchmarkWalk(tree, threads);
+            }
+        }
+        for (int size : SIZES) {
+            Path file = generate(root.resolve("single-" + size), 1, size, 1).resolve("0");
+            benchmarkHash(file, size, Long.MAX_VALUE, "buffered");
+            benchmarkHash(file, size, 0, "mapped");
+        }
+    }
+
+    private void benchmarkHex() {
+        Random random = new Random(HEX_HASHES);
+        byte[][] hashes = new byte[HEX_HASHES][HashAlgorithm.SHA_256.getLength()];
+        for (byte[] hash : hashes) {
+            random.nextBytes(hash);
+        }
+        long[] sink = new long[1];
+        Runnable format = () -> {
+            for (byte[] hash : hashes) {
+                sink[0] += String.format("%0" + hash.length * 2 + "x", new BigInteger(1, hash)).length();
+            }
+        };
+        char[] line = new char[HashAlgorithm.SHA_256.getLength() * 2];
+        Runnable table = () -> {
+            for (byte[] hash : hashes) {
+                sink[0] += HashSumCounter.toHex(hash, line, 0) + line[0];
+            }
+        };
+        format.run();
+        table.run();
+        report("hex, String.format", HEX_HASHES, 0, measure(format));
+        report("hex, lookup table", HEX_HASHES, 0, measure(table));
+    }
+
+    private void benchmarkWalk(Path tree, int threads) throws IOException {
+        Path input = root.resolve("input");
+        Path output = root.resolve("output");
+        Files.writeString(input, tree + System.lineSeparator());
+        long files = 0;
+        long bytes = 0;
+        for (Path file : list(tree)) {
+            files++;
+            bytes += Files.size(file);
+        }
+        String[] args = {"--threads", Integer.toString(threads), input.toString(), output.toString()};
+        Walker.walk(args, true);
+        long[] measured = measure(() -> Walker.walk(args, true));
+        report(String.format("walk %s, %d threads", tree.getFileName(), threads), files, bytes, measured);
+    }
+
+    private void benchmarkHash(Path file, long size, long mappedThreshold, String mode) {
+        HashSumCounter.getHashSum(file, HashAlgorithm.SHA_256, mappedThreshold);
+        long[] measured = measure(() -> HashSumCounter.getHashSum(file, HashAlgorithm.SHA_256, mappedThreshold));
+        report(String.format("hash %d bytes, %s", size, mode), 1, size, measured);
+    }
+
+    private long[] measure(Runnable action) {
+        long time = 0;
+        long allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            action.run();
+            time += System.nanoTime() - start;
+            allocated += allocatedBytes() - allocatedBefore;
+        }
+        return new long[]{time / iterations, allocated / iterations};
+    }
+
+    private static long allocatedBytes() {
+        long collections = collectionCount() - INITIAL_COLLECTIONS;
+        // Notifications are delivered asynchronously, wait until the finished collections are counted
+        long deadline = System.nanoTime() + NOTIFICATION_TIMEOUT;
+        while (COLLECTIONS.get() < collections) {
+            if (System.nanoTime() > deadline) {
+                System.err.println("Not all collections were notified, allocation may be underestimated");
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() + COLLECTED.get();
+    }
+
+    private static long collectionCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(collector -> Math.max(0, collector.getCollectionCount()))
+                .sum();
+    }
+
+    private static long heapUsed(Map<String, MemoryUsage> usage) {
+        return usage.entrySet().stream()
+                .filter(pool -> HEAP_POOLS.contains(pool.getKey()))
+                .mapToLong(pool -> pool.getValue().getUsed())
+                .sum();
+    }
+
+    private static void report(String name, long files, long bytes, long[] measured) {
+        double seconds = measured[0] / 1e9;
+        System.out.printf("%-40s %12.0f files/s %10.1f MB/s %12d bytes allocated%n",
+                name, files / seconds, bytes / 1e6 / seconds, measured[1]);
+    }
+
+    /**
+     * Generates tree next to {@code dir} and moves it in place, so an existing tree is always complete.
+     */
+    private static Path generate(Path dir, int files, long size, int depth) throws IOException {
+        if (Files.exists(dir)) {
+            verify(dir, files, size);
+            return dir;
+        }
+        Path partial = dir.resolveSibling(dir.getFileName() + ".partial");
+        if (Files.exists(partial)) {
+            delete(partial);
+        }
+        Random random = new Random(files * 31L + depth);
+        byte[] chunk = new byte[(int) Math.min(size, 1 << 20)];
+        Path current = partial;
+        for (int level = 0; level < depth; level++) {
+            Files.createDirectories(current);
+            for (int i = 0; i < files / depth; i++) {
+                try (OutputStream output = Files.newOutputStream(current.resolve(Integer.toString(i)))) {
+                    for (long written = 0; written < size; written += chunk.length) {
+                        random.nextBytes(chunk);
+                        output.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+                    }
+                }
+            }
+            current = current.resolve("next");
+        }
+        Files.move(partial, dir, StandardCopyOption.ATOMIC_MOVE);
+        return dir;
+    }
+
+    private static void verify(Path dir, int files, long size) throws IOException {
+        List<Path> actual = list(dir);
+        for (Path file : actual) {
+            if (Files.size(file) != size) {
+                throw new IOException("Fixture file " + file + " should have " + size + " bytes");
+            }
+        }
+        if (actual.size() != files) {
+            throw new IOException("Fixture " + dir + " should have " + files + " files, found " + actual.size());
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static List<Path> list(Path tree) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(tree, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+}
@@ -1,19 +1,92 @@
 package info.kgeorgiy.ja.kuznetsov.walk;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
-import java.util.stream.Stream;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class Walker {
+    private static final long CHECKPOINT_INTERVAL = 10_000;
+
+    /**
+     * Runs walk with command line arguments:
+     * {@code [--threads N] [--cache FILE] [--algorithm NAME] [--checkpoint FILE] [--mode hashes|duplicates]
+     * [--statistics true|false] [--directories true|false] input output}.
+     */
     public static void walk(String[] args, boolean recursive) {
+        if (args == null || Arrays.stream(args).anyMatch(Objects::isNull)) {
+            System.err.println("Invalid arguments");
+            return;
+        }
+        Map<String, String> options = new HashMap<>();
+        int i = 0;
+        while (i + 1 < args.length && args[i].startsWith("--")) {
+            options.put(args[i].substring(2), args[i + 1]);
+            i += 2;
+        }
+        if (args.length - i != 2) {
+            System.err.println("Invalid arguments");
+            return;
+        }
+        String mode = options.getOrDefault("mode", "hashes");
+        if (!mode.equals("hashes") && !mode.equals("duplicates")) {
+            System.err.println("Unknown mode: " + mode);
+            return;
+        }
+        Options parsed;
+        try {
+            parsed = new Options(
+                    Integer.parseInt(options.getOrDefault("threads", "1")),
+                    HashAlgorithm.forName(options.getOrDefault("algorithm", HashAlgorithm.SHA_256.getName())),
+                    options.containsKey("cache") ? Path.of(options.get("cache")) : null,
+                    options.containsKey("checkpoint") ? Path.of(options.get("checkpoint")) : null,
+                    mode.equals("duplicates"),
+                    Boolean.parseBoolean(options.getOrDefault("statistics", "false")),
+                    Boolean.parseBoolean(options.getOrDefault("directories", "false"))
+            );
+        } catch (NumberFormatException e) {
+            System.err.println("Threads must be an integer argument");
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        options.keySet().removeAll(Arrays.asList(
+                "threads", "algorithm", "cache", "checkpoint", "mode", "statistics", "directories"
+        ));
+        if (!options.isEmpty()) {
+            System.err.println("Unknown options: " + options.keySet());
+            return;
+        }
+        if (parsed.duplicates() && parsed.checkpointFile() != null) {
+            System.err.println("Checkpoints are not supported in duplicates mode");
+            return;
+        }
+        walk(args[i], args[i + 1], recursive, parsed);
+    }
+
+    public static void walk(String[] args, boolean recursive, int threads) {
         if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
             System.err.println("Invalid arguments");
             return;
         }
-        String inputFileName = args[0], outputFileName = args[1];
+        walk(args[0], args[1], recursive, new Options(threads, HashAlgorithm.SHA_256, null, null, false, false, false));
+    }
+
+    private static void walk(String inputFileName, String outputFileName, boolean recursive, Options options) {
+        if (options.threads() < 1) {
+            System.err.println("Number of threads must be positive");
+            return;
+        }
         Path path; //:NOTE: old IO
         try {
             path = Path.of(outputFileName);
@@ -24,31 +97,147 @@ public class Walker {
             System.err.println(e.getMessage());
             return;
         }
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            try (Stream<String> lines = Files.lines(Path.of(inputFileName))) {
-                lines.forEach(fileName -> {
-                    try (Stream<Path> paths = Files.walk(Path.of(fileName), recursive ? Integer.MAX_VALUE : 0)) {
-                        paths.filter(path1 -> Files.isRegularFile(path1) && !Files.isDirectory(path1)).forEach(path1 -> {
-                            String hashSum = HashSumCounter.getHashSum(path1);
-                            try {
-                                writer.write(hashSum + " " + path1 + System.lineSeparator()); //:NOTE: \n
-                            } catch (SecurityException | IOException e) {
-                                System.err.println("Couldn't write to file: " + path1);
-                            }
-                        });
-                    } catch (SecurityException | InvalidPathException | IOException e) {
-                        try {
-                            writer.write(HashSumCounter.getDefaultHashSum() + " " + fileName + System.lineSeparator());
-                        } catch (SecurityException | IOException ex) {
-                            System.err.println("Couldn't write to file: " + fileName);
+        HashCache cache = null;
+        if (options.cacheFile() != null) {
+            try {
+                cache = HashCache.open(options.cacheFile(), options.algorithm());
+            } catch (SecurityException | IOException e) {
+                System.err.println("Couldn't open hash cache, walking without it: " + options.cacheFile());
+            }
+        }
+        try {
+            if (options.duplicates()) {
+                writeDuplicates(inputFileName, outputFileName, path, recursive, options, cache);
+            } else {
+                writeHashes(inputFileName, outputFileName, path, recursive, options, cache);
+            }
+        } finally {
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    System.err.println("Couldn't close hash cache: " + options.cacheFile());
+                }
+            }
+        }
+    }
+
+    private static void writeHashes(String inputFileName, String outputFileName, Path path, boolean recursive,
+                                    Options options, HashCache cache) {
+        Checkpoint checkpoint = null;
+        if (options.checkpointFile() != null) {
+            String signature = getCheckpointSignature(Path.of(inputFileName), path, recursive,
+                    options.directories(), options.algorithm());
+            checkpoint = Checkpoint.open(options.checkpointFile(), signature);
+        }
+        boolean completed = false;
+        try (FileChannel channel = openOutput(path, checkpoint)) {
+            ChannelWriter writer = new ChannelWriter(channel);
+            try (writer; HashWriter hashWriter = new HashWriter(writer, options.threads(), options.algorithm(), cache)) {
+                try (BufferedReader reader = Files.newBufferedReader(Path.of(inputFileName))) {
+                    long skip = checkpoint == null ? 0 : checkpoint.getLines();
+                    long lines = 0;
+                    long lastSave = System.currentTimeMillis();
+                    String fileName;
+                    while ((fileName = reader.readLine()) != null) {
+                        if (lines++ < skip) {
+                            continue;
+                        }
+                        walk(hashWriter, fileName, recursive, options.directories());
+                        if (checkpoint != null && System.currentTimeMillis() - lastSave >= CHECKPOINT_INTERVAL) {
+                            saveCheckpoint(checkpoint, hashWriter, channel, lines);
+                            lastSave = System.currentTimeMillis();
                         }
                     }
-                });
+                    completed = true;
+                } catch (SecurityException | InvalidPathException | IOException e) {
+                    System.err.println("Invalid input file: " + inputFileName);
+                }
+            }
+            if (options.statistics()) {
+                System.err.println(writer.getStatistics());
+            }
+        } catch (SecurityException | IOException e) {
+            System.err.println("Invalid output file: " + outputFileName);
+            completed = false;
+        }
+        if (completed && checkpoint != null) {
+            try {
+                checkpoint.delete();
+            } catch (SecurityException | IOException e) {
+                System.err.println("Couldn't delete checkpoint: " + options.checkpointFile());
+            }
+        }
+    }
+
+    private static void writeDuplicates(String inputFileName, String outputFileName, Path path, boolean recursive,
+                                        Options options, HashCache cache) {
+        try (BufferedWriter writer = Files.newBufferedWriter(path);
+             DuplicateFinder finder = new DuplicateFinder(options.threads(), options.algorithm(), cache)) {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(inputFileName))) {
+                String fileName;
+                while ((fileName = reader.readLine()) != null) {
+                    finder.add(fileName, recursive);
+                }
             } catch (SecurityException | InvalidPathException | IOException e) {
                 System.err.println("Invalid input file: " + inputFileName);
+                return;
             }
+            finder.write(writer);
         } catch (SecurityException | IOException e) {
             System.err.println("Invalid output file: " + outputFileName);
         }
     }
+
+    /**
+     * Returns signature of a walk, so that its checkpoint is not used by another walk.
+     */
+    static String getCheckpointSignature(Path input, Path output, boolean recursive, boolean directories,
+                                         HashAlgorithm algorithm) {
+        return String.join(System.lineSeparator(),
+                input.toAbsolutePath().toString(),
+                output.toAbsolutePath().toString(),
+                Boolean.toString(recursive),
+                Boolean.toString(directories),
+                algorithm.getName());
+    }
+
+    private static FileChannel openOutput(Path path, Checkpoint checkpoint) throws IOException {
+        if (checkpoint == null || checkpoint.getLines() == 0) {
+            return FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() < checkpoint.getOffset()) {
+            System.err.println("Output is shorter than checkpoint, starting over: " + path);
+            checkpoint.reset();
+        }
+        channel.truncate(checkpoint.getOffset());
+        channel.position(checkpoint.getOffset());
+        return channel;
+    }
+
+    private static void saveCheckpoint(Checkpoint checkpoint, HashWriter hashWriter, FileChannel channel, long lines) {
+        try {
+            hashWriter.flush();
+            channel.force(false);
+            checkpoint.save(lines, channel.position());
+        } catch (SecurityException | IOException e) {
+            System.err.println("Couldn't save checkpoint: " + e.getMessage());
+        }
+    }
+
+    private static void walk(HashWriter hashWriter, String fileName, boolean recursive, boolean directories) {
+        try {
+            Path root = Path.of(fileName);
+            Files.walkFileTree(root, Set.of(), recursive ? Integer.MAX_VALUE : 0,
+                    new HashFileVisitor(hashWriter, root, fileName, directories));
+        } catch (SecurityException | InvalidPathException | IOException e) {
+            hashWriter.addDefault(fileName);
+        }
+    }
+
+    private record Options(int threads, HashAlgorithm algorithm, Path cacheFile, Path checkpointFile,
+                           boolean duplicates, boolean statistics, boolean directories) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Tests for {@link ClientStatistics}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ClientStatisticsTest {
+    @Test
+    public void test01_empty() {
+        ClientStatistics statistics = new ClientStatistics();
+        Assert.assertEquals(0, statistics.getAnswered());
+        Assert.assertEquals(0, statistics.getLatency(50));
+        Assert.assertEquals(0, statistics.getLossRate(), 0);
+    }
+
+    @Test
+    public void test02_mergesThreads() {
+        ClientStatistics statistics = new ClientStatistics();
+        statistics.add(4, 1, 0, new long[]{5, 1, 3, 0}, 3);
+        statistics.add(3, 0, 1, new long[]{2, 4}, 2);
+        Assert.assertEquals(5, statistics.getAnswered());
+        Assert.assertEquals(1, statistics.getLost());
+        Assert.assertEquals(1, statistics.getRetransmissions());
+        Assert.assertEquals(2.0 / 7, statistics.getLossRate(), 1e-9);
+        Assert.assertEquals(1, statistics.getLatency(0));
+        Assert.assertEquals(3, statistics.getLatency(50));
+        Assert.assertEquals(5, statistics.getLatency(100));
+    }
+
+    @Test
+    public void test03_addAfterQuery() {
+        ClientStatistics statistics = new ClientStatistics();
+        statistics.add(1, 0, 0, new long[]{10}, 1);
+        Assert.assertEquals(10, statistics.getLatency(100));
+        statistics.add(1, 0, 0, new long[]{20}, 1);
+        Assert.assertEquals(20, statistics.getLatency(100));
+    }
+}
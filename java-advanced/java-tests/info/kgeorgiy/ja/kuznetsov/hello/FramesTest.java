@@ -0,0 +1,82 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link Frames}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FramesTest {
+    @Test
+    public void test01_completeFrames() throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(64);
+        frame(input, "first");
+        frame(input, "");
+        frame(input, "\u0442\u0440\u0435\u0442\u0438\u0439");
+        input.flip();
+        Assert.assertEquals("first", payload(input));
+        Assert.assertEquals("", payload(input));
+        Assert.assertEquals("\u0442\u0440\u0435\u0442\u0438\u0439", payload(input));
+        Assert.assertEquals(-1, Frames.next(input));
+    }
+
+    @Test
+    public void test02_partialFrame() throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(64);
+        frame(frame, "partial");
+        frame.flip();
+        ByteBuffer input = ByteBuffer.allocate(64);
+        for (int i = 0; i < frame.limit(); i++) {
+            input.put(frame.get(i)).flip();
+            if (i + 1 < frame.limit()) {
+                Assert.assertEquals(-1, Frames.next(input));
+                Assert.assertEquals("Incomplete frame should not be consumed", 0, input.position());
+                input.compact();
+            }
+        }
+        Assert.assertEquals("partial", payload(input));
+    }
+
+    @Test(expected = IOException.class)
+    public void test03_negativeLength() throws IOException {
+        Frames.next(ByteBuffer.allocate(Integer.BYTES).putInt(-1).flip());
+    }
+
+    @Test(expected = IOException.class)
+    public void test04_tooLong() throws IOException {
+        Frames.next(ByteBuffer.allocate(Integer.BYTES).putInt(Frames.MAX_SIZE + 1).flip());
+    }
+
+    @Test
+    public void test05_ensure() {
+        ByteBuffer buffer = ByteBuffer.allocate(4).put((byte) 1).put((byte) 2);
+        Assert.assertSame(buffer, Frames.ensure(buffer, 2));
+        ByteBuffer enlarged = Frames.ensure(buffer, 100);
+        Assert.assertTrue(enlarged.remaining() >= 100);
+        Assert.assertEquals(2, enlarged.position());
+        Assert.assertEquals(1, enlarged.get(0));
+        Assert.assertEquals(2, enlarged.get(1));
+    }
+
+    private static void frame(ByteBuffer output, String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        output.putInt(data.length).put(data);
+    }
+
+    private static String payload(ByteBuffer input) throws IOException {
+        int length = Frames.next(input);
+        Assert.assertTrue("Frame should be complete", length >= 0);
+        String payload = new String(input.array(), input.position(), length, StandardCharsets.UTF_8);
+        input.position(input.position() + length);
+        return payload;
+    }
+}
@@ -0,0 +1,86 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link HelloTCPClient} against {@link HelloTCPServer} and misbehaving servers.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HelloTCPClientTest {
+    private static final int PORT = 28_950;
+
+    @Test
+    public void test01_roundTrip() {
+        try (HelloTCPServer server = new HelloTCPServer()) {
+            server.start(PORT, 2);
+            new HelloTCPClient().run("localhost", PORT, "tcp", 4, 10);
+        }
+    }
+
+    @Test
+    public void test02_pipelined() {
+        try (HelloTCPServer server = new HelloTCPServer()) {
+            server.start(PORT + 1, 2);
+            new HelloTCPClient(8).run("localhost", PORT + 1, "tcp", 4, 100);
+        }
+    }
+
+    @Test
+    public void test03_unexpectedResponse() throws Exception {
+        try (ServerSocket server = new ServerSocket(PORT + 2)) {
+            Thread responder = respond(server, "Hello, wrong");
+            assertFails(PORT + 2);
+            responder.join();
+        }
+    }
+
+    @Test
+    public void test04_closedConnection() throws Exception {
+        try (ServerSocket server = new ServerSocket(PORT + 3)) {
+            Thread responder = respond(server, null);
+            assertFails(PORT + 3);
+            responder.join();
+        }
+    }
+
+    private static void assertFails(int port) {
+        try {
+            new HelloTCPClient().run("localhost", port, "tcp", 1, 2);
+            Assert.fail("Failed connection should be reported");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Connection tcp1_ failed"));
+        }
+    }
+
+    private static Thread respond(ServerSocket server, String response) {
+        Thread thread = new Thread(() -> {
+            try (Socket socket = server.accept()) {
+                DataInputStream input = new DataInputStream(socket.getInputStream());
+                input.readFully(new byte[input.readInt()]);
+                if (response != null) {
+                    byte[] data = response.getBytes(StandardCharsets.UTF_8);
+                    DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+                    output.writeInt(data.length);
+                    output.write(data);
+                    output.flush();
+                    input.read();
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,76 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for sharding of {@link HelloUDPServer}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HelloUDPServerTest {
+    private static final int THREADS = 4;
+
+    @Test
+    public void test01_shardedEphemeralPort() throws IOException, MalformedObjectNameException {
+        test(false);
+    }
+
+    @Test
+    public void test02_shardedBatchedEphemeralPort() throws IOException, MalformedObjectNameException {
+        test(true);
+    }
+
+    private static void test(boolean batched) throws IOException, MalformedObjectNameException {
+        try (HelloUDPServer server = new HelloUDPServer(ThreadMode.PLATFORM, batched, true)) {
+            server.start(0, THREADS);
+            Set<ObjectName> names = ManagementFactory.getPlatformMBeanServer().queryNames(
+                    new ObjectName(HelloUDPServer.class.getPackageName() + ":type=HelloUDPServer,*"), null);
+            Assert.assertEquals(1, names.size());
+            int port = Integer.parseInt(names.iterator().next().getKeyProperty("port"));
+            Assert.assertNotEquals("Actual port should be registered", 0, port);
+
+            List<DatagramSocket> sockets = server.getSockets();
+            boolean reusePort = HelloUDPServer.isReusePortSupported();
+            Assert.assertEquals("Every shard should have its own socket unless SO_REUSEPORT is unsupported",
+                    reusePort ? THREADS : 1, sockets.size());
+            Set<DatagramSocket> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            distinct.addAll(sockets);
+            Assert.assertEquals("Shard sockets should be distinct", sockets.size(), distinct.size());
+            for (DatagramSocket socket : sockets) {
+                Assert.assertTrue(socket.isBound());
+                Assert.assertEquals("Every shard should be bound to the same port", port, socket.getLocalPort());
+                if (reusePort) {
+                    Assert.assertTrue(socket.getOption(StandardSocketOptions.SO_REUSEPORT));
+                }
+            }
+
+            try (DatagramSocket client = new DatagramSocket()) {
+                client.setSoTimeout(1_000);
+                byte[] request = "shard".getBytes(StandardCharsets.UTF_8);
+                client.send(new DatagramPacket(request, request.length, new InetSocketAddress("localhost", port)));
+                DatagramPacket response = new DatagramPacket(new byte[1024], 1024);
+                client.receive(response);
+                Assert.assertEquals("Hello, shard",
+                        new String(response.getData(), 0, response.getLength(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
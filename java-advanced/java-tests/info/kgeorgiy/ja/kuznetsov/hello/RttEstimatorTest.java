@@ -0,0 +1,88 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link RttEstimator}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RttEstimatorTest {
+    private static final long INITIAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MIN = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX = TimeUnit.MILLISECONDS.toNanos(3_000);
+
+    @Test
+    public void test01_initialTimeout() {
+        Assert.assertEquals(INITIAL, new RttEstimator(INITIAL, MIN, MAX).getTimeout());
+    }
+
+    @Test
+    public void test02_convergesBelowInitial() {
+        RttEstimator estimator = new RttEstimator(INITIAL, MIN, MAX);
+        for (int i = 0; i < 100; i++) {
+            estimator.sample(TimeUnit.MICROSECONDS.toNanos(200), false);
+        }
+        Assert.assertEquals(MIN, estimator.getTimeout());
+    }
+
+    @Test
+    public void test03_tracksSlowNetwork() {
+        RttEstimator estimator = new RttEstimator(INITIAL, MIN, MAX);
+        long rtt = TimeUnit.MILLISECONDS.toNanos(30);
+        for (int i = 0; i < 100; i++) {
+            estimator.sample(rtt, false);
+        }
+        Assert.assertTrue("Timeout should exceed steady round-trip time", estimator.getTimeout() > rtt);
+        Assert.assertTrue("Timeout should be below initial", estimator.getTimeout() < INITIAL);
+    }
+
+    @Test
+    public void test04_karn() {
+        RttEstimator estimator = new RttEstimator(INITIAL, MIN, MAX);
+        estimator.sample(TimeUnit.MILLISECONDS.toNanos(1), true);
+        Assert.assertEquals("Retransmitted samples should be ignored", INITIAL, estimator.getTimeout());
+        estimator.backoff();
+        Assert.assertEquals(2 * INITIAL, estimator.getTimeout());
+        estimator.sample(TimeUnit.MILLISECONDS.toNanos(1), true);
+        Assert.assertEquals("Answer should cancel backoff without new estimation", INITIAL, estimator.getTimeout());
+        estimator.sample(TimeUnit.MILLISECONDS.toNanos(1), false);
+        Assert.assertEquals(MIN, estimator.getTimeout());
+    }
+
+    @Test
+    public void test05_backoff() {
+        RttEstimator estimator = new RttEstimator(INITIAL, MIN, MAX);
+        for (int i = 0; i < 10; i++) {
+            estimator.backoff();
+        }
+        Assert.assertTrue("Backoff should be bounded", estimator.getTimeout() < MAX);
+        Assert.assertTrue("Backoff should increase timeout", estimator.getTimeout() > INITIAL);
+    }
+
+    @Test
+    public void test06_sustainedLoss() {
+        RttEstimator estimator = new RttEstimator(INITIAL, MIN, MAX);
+        long rtt = TimeUnit.MILLISECONDS.toNanos(20);
+        for (int i = 0; i < 100; i++) {
+            estimator.sample(rtt, false);
+        }
+        long estimated = estimator.getTimeout();
+        // Every request is lost once, so all answers are for retransmissions
+        for (int i = 0; i < 1000; i++) {
+            estimator.backoff();
+            estimator.backoff();
+            Assert.assertTrue("Timeout should stay near estimation", estimator.getTimeout() <= 4 * estimated);
+            estimator.sample(rtt, true);
+        }
+        Assert.assertEquals("Timeout should recover after loss", estimated, estimator.getTimeout());
+        estimator.sample(rtt, false);
+        Assert.assertEquals(estimated, estimator.getTimeout());
+    }
+}
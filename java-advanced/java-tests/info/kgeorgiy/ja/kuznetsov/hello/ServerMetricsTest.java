@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link ServerMetrics}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ServerMetricsTest {
+    @Test
+    public void test01_counters() {
+        ServerMetrics metrics = new ServerMetrics(1);
+        metrics.received(10);
+        metrics.received(20);
+        metrics.received(30);
+        metrics.sent(17, System.nanoTime());
+        metrics.dropped();
+        Assert.assertEquals(3, metrics.getReceivedPackets());
+        Assert.assertEquals(60, metrics.getReceivedBytes());
+        Assert.assertEquals(1, metrics.getSentPackets());
+        Assert.assertEquals(17, metrics.getSentBytes());
+        Assert.assertEquals(1, metrics.getDroppedPackets());
+        Assert.assertEquals(1, metrics.getQueueDepth());
+    }
+
+    @Test
+    public void test02_busyTime() {
+        ServerMetrics metrics = new ServerMetrics(3);
+        metrics.busy(0, 1_500_000);
+        metrics.busy(0, 1_500_000);
+        metrics.busy(2, 7_000_000);
+        Assert.assertArrayEquals(new long[]{3, 0, 7}, metrics.getBusyTime());
+    }
+
+    @Test
+    public void test03_latency() {
+        ServerMetrics metrics = new ServerMetrics(1);
+        Assert.assertEquals(0, metrics.getLatency(50), 0);
+        // Latencies start at the lower bounds of their power-of-two buckets, leaving a second to record them
+        for (int i = 0; i < 99; i++) {
+            metrics.sent(1, System.nanoTime() - (1L << 30));
+        }
+        metrics.sent(1, System.nanoTime() - (1L << 36));
+        long[] histogram = metrics.getLatencyHistogram();
+        Assert.assertEquals(Long.SIZE, histogram.length);
+        Assert.assertEquals(99, histogram[31]);
+        Assert.assertEquals(1, histogram[37]);
+        Assert.assertEquals((1L << 31) / 1e3, metrics.getLatency(50), 0);
+        Assert.assertEquals((1L << 31) / 1e3, metrics.getLatency(99), 0);
+        Assert.assertEquals((1L << 37) / 1e3, metrics.getLatency(100), 0);
+    }
+
+    @Test
+    public void test04_concurrentWorkers() throws InterruptedException {
+        int workers = 4;
+        int updates = 100_000;
+        ServerMetrics metrics = new ServerMetrics(workers);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < updates; j++) {
+                    metrics.received(1);
+                    metrics.sent(1, System.nanoTime());
+                    metrics.busy(worker, 10);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(workers * updates, metrics.getSentPackets());
+        Assert.assertEquals(0, metrics.getQueueDepth());
+        Assert.assertEquals(workers * updates, Arrays.stream(metrics.getLatencyHistogram()).sum());
+        Assert.assertArrayEquals(new long[]{1, 1, 1, 1}, metrics.getBusyTime());
+    }
+}
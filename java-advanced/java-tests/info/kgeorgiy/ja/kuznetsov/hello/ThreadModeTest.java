@@ -0,0 +1,49 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tests for {@link ThreadMode}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ThreadModeTest {
+    @Test
+    public void test01_platform() {
+        ExecutorService service = ThreadMode.PLATFORM.newExecutor(2);
+        Assert.assertFalse(service.isShutdown());
+        service.shutdownNow();
+    }
+
+    @Test
+    public void test02_virtualUnsupported() {
+        Assume.assumeTrue(Runtime.version().feature() < 21);
+        try {
+            ThreadMode.VIRTUAL.newExecutor(2);
+            Assert.fail("Virtual threads shouldn't be replaced by platform ones");
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test
+    public void test03_virtualServerUnsupported() {
+        Assume.assumeTrue(Runtime.version().feature() < 21);
+        try {
+            new HelloUDPServer(ThreadMode.VIRTUAL).close();
+            Assert.fail("Virtual server shouldn't be created");
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test04_virtualBatchedServer() {
+        new HelloUDPServer(ThreadMode.VIRTUAL, true);
+    }
+}
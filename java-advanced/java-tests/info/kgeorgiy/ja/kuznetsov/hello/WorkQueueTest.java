@@ -0,0 +1,105 @@
+package info.kgeorgiy.ja.kuznetsov.hello;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link WorkQueue} and every {@link DropPolicy}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class WorkQueueTest {
+    @Test
+    public void test01_empty() throws InterruptedException {
+        WorkQueue<String> queue = create(2, DropPolicy.DROP_NEWEST);
+        Assert.assertEquals(0, queue.size());
+        Assert.assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void test02_dropNewest() throws InterruptedException {
+        WorkQueue<String> queue = create(2, DropPolicy.DROP_NEWEST);
+        Assert.assertNull(queue.offer("a1"));
+        Assert.assertNull(queue.offer("a2"));
+        Assert.assertEquals("a3", queue.offer("a3"));
+        Assert.assertEquals(List.of("a1", "a2"), drain(queue));
+    }
+
+    @Test
+    public void test03_dropOldest() throws InterruptedException {
+        WorkQueue<String> queue = create(2, DropPolicy.DROP_OLDEST);
+        Assert.assertNull(queue.offer("a1"));
+        Assert.assertNull(queue.offer("a2"));
+        Assert.assertEquals("a1", queue.offer("a3"));
+        Assert.assertEquals(List.of("a2", "a3"), drain(queue));
+    }
+
+    @Test
+    public void test04_shedBySourceRoundRobin() throws InterruptedException {
+        WorkQueue<String> queue = create(10, DropPolicy.SHED_BY_SOURCE);
+        for (String request : List.of("a1", "a2", "a3", "b1", "c1", "b2")) {
+            Assert.assertNull(queue.offer(request));
+        }
+        Assert.assertEquals(List.of("a1", "b1", "c1", "a2", "b2", "a3"), drain(queue));
+    }
+
+    @Test
+    public void test05_shedBySourceDropsHeaviest() throws InterruptedException {
+        WorkQueue<String> queue = create(4, DropPolicy.SHED_BY_SOURCE);
+        for (String request : List.of("a1", "a2", "a3", "b1")) {
+            Assert.assertNull(queue.offer(request));
+        }
+        Assert.assertEquals("a3", queue.offer("c1"));
+        Assert.assertEquals("a2", queue.offer("d1"));
+        Assert.assertEquals("b2", queue.offer("b2"));
+        Assert.assertEquals("a4", queue.offer("a4"));
+        Assert.assertEquals(List.of("a1", "b1", "c1", "d1"), drain(queue));
+    }
+
+    @Test
+    public void test06_shedBySourceFlood() throws InterruptedException {
+        WorkQueue<String> queue = create(8, DropPolicy.SHED_BY_SOURCE);
+        for (int i = 1; i <= 400; i++) {
+            queue.offer("a" + i);
+            if (i % 100 == 0) {
+                Assert.assertTrue(queue.offer("b" + i / 100).startsWith("a"));
+            }
+        }
+        Assert.assertEquals(8, queue.size());
+        List<String> served = drain(queue);
+        Assert.assertEquals(List.of("a1", "b1", "a2", "b2", "a3", "b3", "a4", "b4"), served);
+    }
+
+    @Test
+    public void test07_shedBySourceAfterPoll() throws InterruptedException {
+        WorkQueue<String> queue = create(3, DropPolicy.SHED_BY_SOURCE);
+        for (String request : List.of("a1", "a2", "b1")) {
+            Assert.assertNull(queue.offer(request));
+        }
+        Assert.assertEquals("a1", queue.poll(0, TimeUnit.MILLISECONDS));
+        Assert.assertNull(queue.offer("b2"));
+        Assert.assertEquals("b3", queue.offer("b3"));
+        Assert.assertEquals("b2", queue.offer("c1"));
+        Assert.assertEquals(List.of("b1", "a2", "c1"), drain(queue));
+    }
+
+    private static WorkQueue<String> create(int capacity, DropPolicy policy) {
+        return new WorkQueue<>(capacity, policy, request -> request.charAt(0));
+    }
+
+    private static List<String> drain(WorkQueue<String> queue) throws InterruptedException {
+        List<String> requests = new ArrayList<>();
+        for (String request; (request = queue.poll(0, TimeUnit.MILLISECONDS)) != null; ) {
+            requests.add(request);
+        }
+        Assert.assertEquals(0, queue.size());
+        return requests;
+    }
+}
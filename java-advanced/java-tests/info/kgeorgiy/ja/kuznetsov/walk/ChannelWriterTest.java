@@ -0,0 +1,113 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tests for {@link ChannelWriter}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ChannelWriterTest {
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("channel-writer", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void test01_text() throws IOException {
+        String text = "hash \u0444\u0430\u0439\u043b \uD83D\uDE00" + System.lineSeparator();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            try (ChannelWriter writer = new ChannelWriter(channel)) {
+                writer.write(text);
+            }
+        }
+        Assert.assertEquals(text, Files.readString(file));
+    }
+
+    @Test
+    public void test02_splitSurrogatePairs() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            try (ChannelWriter writer = new ChannelWriter(channel)) {
+                for (int i = 0; i < 1_000_000; i++) {
+                    String emoji = Character.toString(0x1F600 + i % 64);
+                    writer.write(emoji.charAt(0));
+                    writer.write(emoji.charAt(1));
+                    expected.append(emoji);
+                }
+            }
+        }
+        Assert.assertTrue("Characters split between writes should be encoded",
+                expected.toString().equals(Files.readString(file)));
+    }
+
+    @Test
+    public void test03_trailingSurrogate() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            try (ChannelWriter writer = new ChannelWriter(channel)) {
+                writer.write("end\uD83D");
+                writer.flush();
+                Assert.assertEquals("Incomplete character should be kept until close", "end", Files.readString(file));
+            }
+        }
+        Assert.assertEquals("end?", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test(timeout = 10_000)
+    public void test04_writerThreadFailureOnFlush() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChannelWriter writer = new ChannelWriter(channel);
+            writer.write("text");
+            assertFails(writer::flush);
+            assertFails(writer::close);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void test05_writerThreadFailureOnWrite() throws IOException {
+        char[] chunk = new char[1 << 16];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChannelWriter writer = new ChannelWriter(channel);
+            assertFails(() -> {
+                while (true) {
+                    writer.write(chunk);
+                }
+            });
+            assertFails(writer::close);
+        }
+    }
+
+    private static void assertFails(Action action) {
+        try {
+            action.run();
+            Assert.fail("Writer thread failure should be rethrown");
+        } catch (IOException e) {
+            Assert.assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof NonWritableChannelException);
+        }
+    }
+
+    private interface Action {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,124 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link Checkpoint} and walk resumption.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CheckpointTest {
+    private static final String MARKER = "f".repeat(64) + " resumed";
+
+    @Rule
+    public final TemporaryDirectory directory = new TemporaryDirectory("checkpoint");
+
+    private Path root;
+    private Path checkpointFile;
+    private Path input;
+    private Path output;
+
+    @Before
+    public void setUp() throws IOException {
+        root = directory.getRoot();
+        checkpointFile = root.resolve("checkpoint");
+        input = root.resolve("input");
+        output = root.resolve("output");
+        List<String> files = new ArrayList<>();
+        for (String name : List.of("a", "b", "c")) {
+            files.add(Files.writeString(root.resolve(name), name).toString());
+        }
+        Files.write(input, files);
+    }
+
+    @Test
+    public void test01_roundTrip() throws IOException {
+        Checkpoint.open(checkpointFile, "walk").save(3, 42);
+        Checkpoint checkpoint = Checkpoint.open(checkpointFile, "walk");
+        Assert.assertEquals(3, checkpoint.getLines());
+        Assert.assertEquals(42, checkpoint.getOffset());
+        checkpoint.delete();
+        Assert.assertFalse(Files.exists(checkpointFile));
+    }
+
+    @Test
+    public void test02_otherSignature() throws IOException {
+        Checkpoint.open(checkpointFile, "walk").save(3, 42);
+        assertEmpty(Checkpoint.open(checkpointFile, "other walk"));
+    }
+
+    @Test
+    public void test03_corrupted() throws IOException {
+        Checkpoint.open(checkpointFile, "walk").save(3, 42);
+        byte[] bytes = Files.readAllBytes(checkpointFile);
+        Files.write(checkpointFile, Arrays.copyOf(bytes, bytes.length - 4));
+        assertEmpty(Checkpoint.open(checkpointFile, "walk"));
+    }
+
+    @Test
+    public void test04_resume() throws IOException {
+        List<String> expected = walk();
+        String prefix = MARKER + System.lineSeparator();
+        Files.writeString(output, prefix + "garbage after checkpoint");
+        save(1, prefix.getBytes(StandardCharsets.UTF_8).length);
+
+        walkWithCheckpoint();
+        List<String> actual = Files.readAllLines(output);
+        Assert.assertEquals("Completed lines should be kept", MARKER, actual.get(0));
+        Assert.assertEquals(expected.subList(1, expected.size()), actual.subList(1, actual.size()));
+        Assert.assertFalse("Checkpoint should be deleted after completion", Files.exists(checkpointFile));
+    }
+
+    @Test
+    public void test05_shortOutput() throws IOException {
+        List<String> expected = walk();
+        Files.writeString(output, MARKER);
+        save(1, MARKER.length() + 100);
+
+        walkWithCheckpoint();
+        Assert.assertEquals(expected, Files.readAllLines(output));
+        Assert.assertFalse(Files.exists(checkpointFile));
+    }
+
+    @Test
+    public void test06_otherWalk() throws IOException {
+        List<String> expected = walk();
+        Checkpoint.open(checkpointFile, "other walk").save(1, 0);
+
+        walkWithCheckpoint();
+        Assert.assertEquals(expected, Files.readAllLines(output));
+    }
+
+    private static void assertEmpty(Checkpoint checkpoint) {
+        Assert.assertEquals(0, checkpoint.getLines());
+        Assert.assertEquals(0, checkpoint.getOffset());
+    }
+
+    private List<String> walk() throws IOException {
+        Walker.walk(new String[]{input.toString(), output.toString()}, false);
+        return Files.readAllLines(output);
+    }
+
+    private void walkWithCheckpoint() {
+        Walker.walk(new String[]{"--checkpoint", checkpointFile.toString(), input.toString(), output.toString()}, false);
+    }
+
+    private void save(long lines, long offset) throws IOException {
+        String signature = Walker.getCheckpointSignature(input, output, false, false, HashAlgorithm.SHA_256);
+        Checkpoint.open(checkpointFile, signature).save(lines, offset);
+    }
+}
@@ -0,0 +1,143 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for Merkle directory digests written with {@code --directories true}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DirectoryHashTest {
+    @Rule
+    public final TemporaryDirectory directory = new TemporaryDirectory("directory-hash");
+
+    private Path root;
+    private Path dir;
+    private Path input;
+    private Path output;
+
+    @Before
+    public void setUp() throws IOException {
+        root = directory.getRoot();
+        dir = Files.createDirectory(root.resolve("dir"));
+        input = root.resolve("input");
+        output = root.resolve("output");
+        Files.writeString(dir.resolve("b"), "b");
+        Files.writeString(dir.resolve("a"), "a");
+        Files.writeString(Files.createDirectory(dir.resolve("sub")).resolve("c"), "c");
+        Files.writeString(input, dir.toString());
+    }
+
+    @Test
+    public void test01_order() throws IOException {
+        List<String> names = walk().keySet().stream().toList();
+        Assert.assertEquals(5, names.size());
+        Assert.assertTrue("Directory should follow its children",
+                names.indexOf(dir.resolve("sub").toString()) > names.indexOf(dir.resolve("sub").resolve("c").toString()));
+        Assert.assertEquals("Root should be written last", dir.toString(), names.get(names.size() - 1));
+    }
+
+    @Test
+    public void test02_digest() throws IOException {
+        Map<String, String> hashes = walk();
+        Assert.assertEquals(hex(combine(Map.of("c", sha256("c")))), hashes.get(dir.resolve("sub").toString()));
+        Assert.assertEquals(hex(combine(Map.of(
+                "a", sha256("a"),
+                "b", sha256("b"),
+                "sub", combine(Map.of("c", sha256("c")))
+        ))), hashes.get(dir.toString()));
+    }
+
+    @Test
+    public void test03_stable() throws IOException {
+        String expected = walk().get(dir.toString());
+        Assert.assertEquals(expected, walk().get(dir.toString()));
+    }
+
+    @Test
+    public void test04_contentChanged() throws IOException {
+        String expected = walk().get(dir.toString());
+        Files.writeString(dir.resolve("sub").resolve("c"), "d");
+        Assert.assertNotEquals(expected, walk().get(dir.toString()));
+    }
+
+    @Test
+    public void test05_renamed() throws IOException {
+        String expected = walk().get(dir.toString());
+        Files.move(dir.resolve("a"), dir.resolve("aa"));
+        Assert.assertNotEquals(expected, walk().get(dir.toString()));
+    }
+
+    @Test
+    public void test06_parallel() throws IOException {
+        for (int i = 0; i < 8; i++) {
+            Path sub = Files.createDirectories(dir.resolve("d" + i).resolve("e" + i % 3));
+            for (int j = 0; j < 20; j++) {
+                Files.writeString(sub.resolve("f" + j), "x".repeat(i * 1000 + j));
+                Files.writeString(sub.getParent().resolve("g" + j), "y".repeat(j * 100 + i));
+            }
+        }
+        Map<String, String> expected = walk();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals("Parallel digests should equal sequential ones", expected, walk(4));
+        }
+    }
+
+    private Map<String, String> walk() throws IOException {
+        return walk(1);
+    }
+
+    private Map<String, String> walk(int threads) throws IOException {
+        Walker.walk(new String[]{"--threads", Integer.toString(threads), "--directories", "true",
+                input.toString(), output.toString()}, true);
+        Map<String, String> hashes = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(output)) {
+            int space = line.indexOf(' ');
+            hashes.put(line.substring(space + 1), line.substring(0, space));
+        }
+        return hashes;
+    }
+
+    private static byte[] combine(Map<String, byte[]> children) {
+        MessageDigest digest = newDigest();
+        children.keySet().stream().sorted().forEach(name -> {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(children.get(name));
+        });
+        return digest.digest();
+    }
+
+    private static byte[] sha256(String content) {
+        return newDigest().digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        return String.format("%064x", new BigInteger(1, hash));
+    }
+}
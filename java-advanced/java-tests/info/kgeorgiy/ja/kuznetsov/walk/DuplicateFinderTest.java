@@ -0,0 +1,121 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link DuplicateFinder}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DuplicateFinderTest {
+    @Rule
+    public final TemporaryDirectory directory = new TemporaryDirectory("duplicates");
+
+    private Path root;
+
+    @Before
+    public void setUp() {
+        root = directory.getRoot();
+    }
+
+    @Test
+    public void test01_noDuplicates() throws IOException {
+        Files.writeString(root.resolve("a"), "a");
+        Files.writeString(root.resolve("b"), "b");
+        Assert.assertEquals(List.of(), find(root));
+    }
+
+    @Test
+    public void test02_duplicates() throws IOException {
+        Files.writeString(root.resolve("a"), "same");
+        Files.writeString(root.resolve("b"), "same");
+        Files.writeString(root.resolve("c"), "diff");
+        Assert.assertEquals(List.of(root.resolve("a").toString(), root.resolve("b").toString()), find(root));
+    }
+
+    @Test
+    public void test03_largeFiles() throws IOException {
+        byte[] content = new byte[20_000];
+        Files.write(root.resolve("a"), content);
+        Files.write(root.resolve("b"), content);
+        content[10_000] = 1;
+        Files.write(root.resolve("c"), content);
+        Assert.assertEquals(List.of(root.resolve("a").toString(), root.resolve("b").toString()), find(root));
+    }
+
+    @Test
+    public void test04_selfDuplicate() throws IOException {
+        Path file = Files.writeString(Files.createDirectory(root.resolve("t")).resolve("z"), "z");
+        Assert.assertEquals(List.of(), find(root.resolve("t"), file, root.resolve("t/../t/z")));
+    }
+
+    @Test
+    public void test05_overlappingInputs() throws IOException {
+        Path file = Files.writeString(Files.createDirectory(root.resolve("t")).resolve("z"), "same");
+        Files.writeString(root.resolve("y"), "same");
+        Assert.assertEquals(List.of(file.toString(), root.resolve("y").toString()), find(root.resolve("t"), file, root));
+    }
+
+    @Test
+    public void test06_walkerMode() throws IOException {
+        Path dir = Files.createDirectory(root.resolve("dir"));
+        Files.writeString(dir.resolve("a"), "same");
+        Files.writeString(dir.resolve("b"), "same");
+        Files.writeString(dir.resolve("c"), "diff");
+        Path input = Files.writeString(root.resolve("input"), dir.toString());
+        Path output = root.resolve("output");
+        Walker.walk(new String[]{"--mode", "duplicates", input.toString(), output.toString()}, true);
+        String hash = HashSumCounter.getHashSum(dir.resolve("a"), HashAlgorithm.SHA_256);
+        Assert.assertEquals(
+                List.of(hash + " " + dir.resolve("a"), hash + " " + dir.resolve("b")),
+                Files.readAllLines(output).stream().sorted().toList()
+        );
+    }
+
+    @Test
+    public void test07_symbolicLinks() throws IOException {
+        Path dir = Files.createDirectory(root.resolve("dir"));
+        Path outside = Files.writeString(root.resolve("outside"), "same");
+        Path file = Files.writeString(dir.resolve("file"), "same");
+        Path link;
+        try {
+            link = Files.createSymbolicLink(dir.resolve("link"), outside);
+            Files.createSymbolicLink(dir.resolve("self"), file);
+            Files.createSymbolicLink(dir.resolve("broken"), root.resolve("missing"));
+        } catch (UnsupportedOperationException | IOException e) {
+            Assume.assumeNoException("Symbolic links are not supported", e);
+            return;
+        }
+        Assert.assertEquals("Links should be followed as in hashes mode",
+                List.of(file.toString(), link.toString()), find(dir));
+    }
+
+    private static List<String> find(Path... inputs) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (DuplicateFinder finder = new DuplicateFinder(2, HashAlgorithm.SHA_256, null)) {
+            for (Path input : inputs) {
+                finder.add(input.toString(), true);
+            }
+            finder.write(writer);
+        }
+        return Arrays.stream(writer.toString().split(System.lineSeparator()))
+                .filter(line -> !line.isEmpty())
+                .map(line -> line.substring(line.indexOf(' ') + 1))
+                .sorted()
+                .toList();
+    }
+}
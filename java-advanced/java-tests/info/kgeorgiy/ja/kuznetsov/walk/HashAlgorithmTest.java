@@ -0,0 +1,86 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link HashAlgorithm} and its selection in walk output.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HashAlgorithmTest {
+    private static final String CHECK = "123456789";
+    private static final Map<HashAlgorithm, String> CHECK_VALUES = Map.of(
+            HashAlgorithm.SHA_256, "15e2b0d3c33891ebb0f1ef609ec419420c20e320ce94c65fbc8c3312448eb225",
+            HashAlgorithm.SHA_1, "f7c3bc1d808e04732adf679965ccc34ca7ae3441",
+            HashAlgorithm.MD5, "25f9e794323b453885f5181f1b624d0b",
+            HashAlgorithm.CRC32C, "e3069283"
+    );
+
+    @Rule
+    public final TemporaryDirectory directory = new TemporaryDirectory("hash-algorithm");
+
+    private Path root;
+
+    @Before
+    public void setUp() {
+        root = directory.getRoot();
+    }
+
+    @Test
+    public void test01_checkValues() throws IOException {
+        Path file = Files.writeString(root.resolve("check"), CHECK);
+        for (Map.Entry<HashAlgorithm, String> entry : CHECK_VALUES.entrySet()) {
+            HashAlgorithm algorithm = entry.getKey();
+            Assert.assertEquals(algorithm.getName(), entry.getValue(),
+                    HashSumCounter.getHashSum(file, algorithm, Long.MAX_VALUE));
+            Assert.assertEquals(algorithm.getName() + " mapped", entry.getValue(),
+                    HashSumCounter.getHashSum(file, algorithm, 0));
+            Assert.assertEquals(algorithm.getLength() * 2, entry.getValue().length());
+        }
+    }
+
+    @Test
+    public void test02_functionReuse() throws IOException {
+        Path file = Files.writeString(root.resolve("check"), CHECK);
+        Path other = Files.writeString(root.resolve("other"), "other");
+        HashSumCounter.getHashSum(other, HashAlgorithm.CRC32C);
+        Assert.assertEquals(CHECK_VALUES.get(HashAlgorithm.CRC32C), HashSumCounter.getHashSum(file, HashAlgorithm.CRC32C));
+    }
+
+    @Test
+    public void test03_forName() {
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            Assert.assertSame(algorithm, HashAlgorithm.forName(algorithm.getName()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test04_unknownName() {
+        HashAlgorithm.forName("crc32");
+    }
+
+    @Test
+    public void test05_crc32cOutput() throws IOException {
+        Path file = Files.writeString(root.resolve("check"), CHECK);
+        Path missing = root.resolve("missing");
+        Path input = Files.write(root.resolve("input"), List.of(file.toString(), missing.toString()));
+        Path output = root.resolve("output");
+        Walker.walk(new String[]{"--algorithm", "crc32c", input.toString(), output.toString()}, false);
+        Assert.assertEquals(List.of(
+                "e3069283 " + file,
+                "00000000 " + missing
+        ), Files.readAllLines(output));
+    }
+}
@@ -0,0 +1,125 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Tests for {@link HashCache}. Cache hits are detected by changing file content
+ * while keeping the attributes the cache is keyed on.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HashCacheTest {
+    private static final FileTime MODIFIED = FileTime.fromMillis(1_600_000_000_000L);
+
+    @Rule
+    public final TemporaryDirectory directory = new TemporaryDirectory("hash-cache");
+
+    private Path root;
+    private Path cacheFile;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        root = directory.getRoot();
+        cacheFile = root.resolve("cache");
+        file = write(root.resolve("file"), "aaaa");
+    }
+
+    @Test
+    public void test01_hit() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            Assert.assertArrayEquals(hash("aaaa"), cache.getHash(file));
+            write(file, "bbbb");
+            Assert.assertArrayEquals("Unchanged attributes should hit cache", hash("aaaa"), cache.getHash(file));
+        }
+    }
+
+    @Test
+    public void test02_persistent() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            cache.getHash(file);
+        }
+        write(file, "bbbb");
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            Assert.assertArrayEquals(hash("aaaa"), cache.getHash(file));
+        }
+    }
+
+    @Test
+    public void test03_modifiedTime() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            cache.getHash(file);
+            write(file, "bbbb");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(MODIFIED.toMillis() + 1));
+            Assert.assertArrayEquals(hash("bbbb"), cache.getHash(file));
+        }
+    }
+
+    @Test
+    public void test04_size() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            cache.getHash(file);
+            write(file, "bbbbb");
+            Assert.assertArrayEquals(hash("bbbbb"), cache.getHash(file));
+        }
+    }
+
+    @Test
+    public void test05_fileKey() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            cache.getHash(file);
+            Path replacement = write(root.resolve("replacement"), "bbbb");
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+            Assert.assertNotNull("File system should provide file keys",
+                    Files.readAttributes(file, BasicFileAttributes.class).fileKey());
+            Assert.assertArrayEquals(hash("bbbb"), cache.getHash(file));
+        }
+    }
+
+    @Test
+    public void test06_algorithm() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            cache.getHash(file);
+        }
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.MD5)) {
+            Assert.assertEquals(HashAlgorithm.MD5.getLength(), cache.getHash(file).length);
+        }
+    }
+
+    @Test
+    public void test07_damagedTail() throws IOException {
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            cache.getHash(file);
+        }
+        Files.write(cacheFile, new byte[]{0, 42, 1}, StandardOpenOption.APPEND);
+        write(file, "bbbb");
+        try (HashCache cache = HashCache.open(cacheFile, HashAlgorithm.SHA_256)) {
+            Assert.assertArrayEquals("Complete records should survive", hash("aaaa"), cache.getHash(file));
+        }
+    }
+
+    private static Path write(Path path, String content) throws IOException {
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, MODIFIED);
+        return path;
+    }
+
+    private byte[] hash(String content) throws IOException {
+        Path expected = Files.writeString(root.resolve("expected"), content);
+        return HashSumCounter.getHash(expected, HashAlgorithm.SHA_256);
+    }
+}
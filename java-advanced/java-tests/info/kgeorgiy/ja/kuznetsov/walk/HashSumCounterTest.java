@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests for hex encoding and mapped reading of {@link HashSumCounter}.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HashSumCounterTest {
+    @Rule
+    public final TemporaryDirectory directory = new TemporaryDirectory("hash-sum");
+
+    @Test
+    public void test01_edgeBytes() {
+        Assert.assertEquals("00017f80ff", toHex(new byte[]{0, 1, 127, -128, -1}));
+    }
+
+    @Test
+    public void test02_randomHashes() {
+        Random random = new Random(6);
+        for (int i = 0; i < 10_000; i++) {
+            byte[] hash = new byte[1 + random.nextInt(64)];
+            random.nextBytes(hash);
+            Assert.assertEquals(String.format("%0" + hash.length * 2 + "x", new BigInteger(1, hash)), toHex(hash));
+        }
+    }
+
+    @Test
+    public void test03_offset() {
+        char[] chars = new char[8];
+        Arrays.fill(chars, '.');
+        Assert.assertEquals(7, HashSumCounter.toHex(new byte[]{(byte) 0xab, (byte) 0xcd}, chars, 3));
+        Assert.assertEquals("...abcd.", new String(chars));
+    }
+
+    @Test
+    public void test04_defaultHashSum() {
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            Assert.assertEquals("0".repeat(algorithm.getLength() * 2), HashSumCounter.getDefaultHashSum(algorithm));
+        }
+    }
+
+    @Test
+    public void test05_truncatedWhileMapped() throws IOException, InterruptedException {
+        Path file = directory.getRoot().resolve("file");
+        for (int i = 0; i < 10; i++) {
+            setLength(file, 1L << 26);
+            Thread truncator = new Thread(() -> {
+                try {
+                    Thread.sleep(2);
+                    setLength(file, 1_000);
+                } catch (InterruptedException | IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            truncator.start();
+            // Either hash of a complete read or error hash, but never a fault
+            HashSumCounter.getHash(file, HashAlgorithm.SHA_256, 1);
+            truncator.join();
+        }
+    }
+
+    private static void setLength(Path file, long length) throws IOException {
+        try (RandomAccessFile output = new RandomAccessFile(file.toFile(), "rw")) {
+            output.setLength(length);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        Assert.assertEquals(chars.length, HashSumCounter.toHex(bytes, chars, 0));
+        return new String(chars);
+    }
+}
@@ -0,0 +1,44 @@
+package info.kgeorgiy.ja.kuznetsov.walk;
+
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Directory created before every test and deleted with all its contents after it.
+ *
+ * @author Ilya Kuznetsov (ilyakuznecov84@gmail.com)
+ */
+class TemporaryDirectory extends ExternalResource {
+    private final String prefix;
+    private Path root;
+
+    TemporaryDirectory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    protected void before() throws IOException {
+        root = Files.createTempDirectory(prefix);
+    }
+
+    @Override
+    protected void after() {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Path getRoot() {
+        return root;
+    }
+}
@@ -0,0 +1,8 @@
+set adv=../../java-advanced-2023
+set cp=%adv%/lib/*;%adv%/artifacts/*
+set tests=info.kgeorgiy.ja.kuznetsov.hello.ClientStatisticsTest info.kgeorgiy.ja.kuznetsov.hello.FramesTest info.kgeorgiy.ja.kuznetsov.hello.HelloTCPClientTest info.kgeorgiy.ja.kuznetsov.hello.HelloUDPServerTest info.kgeorgiy.ja.kuznetsov.hello.RttEstimatorTest info.kgeorgiy.ja.kuznetsov.hello.ServerMetricsTest info.kgeorgiy.ja.kuznetsov.hello.ThreadModeTest info.kgeorgiy.ja.kuznetsov.hello.WorkQueueTest info.kgeorgiy.ja.kuznetsov.walk.ChannelWriterTest info.kgeorgiy.ja.kuznetsov.walk.CheckpointTest info.kgeorgiy.ja.kuznetsov.walk.DirectoryHashTest info.kgeorgiy.ja.kuznetsov.walk.DuplicateFinderTest info.kgeorgiy.ja.kuznetsov.walk.HashAlgorithmTest info.kgeorgiy.ja.kuznetsov.walk.HashCacheTest info.kgeorgiy.ja.kuznetsov.walk.HashSumCounterTest
+dir /s /b ..\java-solutions\*.java ..\java-tests\*.java > sources.txt
+javac -d out -cp %cp% @sources.txt
+java -cp out;%cp% org.junit.runner.JUnitCore %tests%
+del sources.txt
+rd /s /q out
\ No newline at end of file